@@ -0,0 +1,109 @@
+package io.github.wkktoria.shareall.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final RequestMatcher signupMatcher = AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/1.0/users");
+    private final RateLimiter clientLimiter;
+    private final RateLimiter usernameLimiter;
+    private final Counter clientRejections;
+    private final Counter usernameRejections;
+
+    AdmissionControlFilter(final AppConfig.Admission admission, final MeterRegistry meterRegistry) {
+        this.clientLimiter = new RateLimiter(admission.getClientCapacity(), admission.getClientRefillPeriod(),
+                admission.getMaxTrackedKeys());
+        this.usernameLimiter = new RateLimiter(admission.getUsernameCapacity(), admission.getUsernameRefillPeriod(),
+                admission.getMaxTrackedKeys());
+
+        this.clientRejections = Counter.builder("shareall.admission.rejected").tag("scope", "client")
+                .register(meterRegistry);
+        this.usernameRejections = Counter.builder("shareall.admission.rejected").tag("scope", "username")
+                .register(meterRegistry);
+        Gauge.builder("shareall.admission.tracked", clientLimiter, RateLimiter::size).tag("scope", "client")
+                .register(meterRegistry);
+        Gauge.builder("shareall.admission.tracked", usernameLimiter, RateLimiter::size).tag("scope", "username")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        String client = request.getRemoteAddr();
+
+        if (signupMatcher.matches(request)) {
+            if (!clientLimiter.tryAcquire(client)) {
+                clientRejections.increment();
+                reject(response, clientLimiter.retryAfterSeconds(client));
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = basicAuthUsername(request);
+        if (username == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Tokens are taken before the chain runs, so a burst of parallel attempts is cut off before any hashing.
+        if (!clientLimiter.tryAcquire(client)) {
+            clientRejections.increment();
+            reject(response, clientLimiter.retryAfterSeconds(client));
+            return;
+        }
+        if (!usernameLimiter.tryAcquire(username)) {
+            clientLimiter.refund(client);
+            usernameRejections.increment();
+            reject(response, usernameLimiter.retryAfterSeconds(username));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+
+        // Only failed attempts stay charged, so legitimate clients sending Basic auth on every call are not throttled.
+        if (response.getStatus() != HttpStatus.UNAUTHORIZED.value()) {
+            clientLimiter.refund(client);
+            usernameLimiter.refund(username);
+        }
+    }
+
+    private void reject(final HttpServletResponse response, final long retryAfterSeconds) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+    }
+
+    private String basicAuthUsername(final HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(BASIC_PREFIX.length()).trim()),
+                    StandardCharsets.UTF_8);
+            int separator = credentials.indexOf(':');
+            return separator < 0 ? null : credentials.substring(0, separator);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -3,6 +3,11 @@ package io.github.wkktoria.shareall.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
 
 @Data
 @Configuration
@@ -14,6 +19,32 @@ public class AppConfig {
 
     private String attachmentsFolder = "attachments";
 
+    private DataSize maxProfileImageSize = DataSize.ofMegabytes(10);
+
+    private Auth auth = new Auth();
+
+    private Password password = new Password();
+
+    private Admission admission = new Admission();
+
+    private Listing listing = new Listing();
+
+    private Search search = new Search();
+
+    private BulkImport bulkImport = new BulkImport();
+
+    private UsernameFilter usernameFilter = new UsernameFilter();
+
+    private Feed feed = new Feed();
+
+    private PostWriteBehind postWriteBehind = new PostWriteBehind();
+
+    private PostCounters postCounters = new PostCounters();
+
+    private Attachments attachments = new Attachments();
+
+    private Ids ids = new Ids();
+
     public String getFullProfileImagesPath() {
         return uploadPath + "/" + profileImagesFolder;
     }
@@ -21,4 +52,142 @@ public class AppConfig {
     public String getFullAttachmentsPath() {
         return uploadPath + "/" + attachmentsFolder;
     }
+
+    @Data
+    public static class Auth {
+        private Duration credentialCacheTtl = Duration.ofMinutes(5);
+
+        private int credentialCacheMaxSize = 10_000;
+
+        private String tokenSecret;
+
+        private Duration accessTokenTtl = Duration.ofMinutes(15);
+
+        private Duration refreshTokenTtl = Duration.ofDays(7);
+
+        private Set<String> adminUsernames = new HashSet<>();
+    }
+
+    @Data
+    public static class Password {
+        private String algorithm = "bcrypt";
+
+        private int bcryptStrength = 10;
+
+        private boolean calibrate = false;
+
+        private Duration calibrationTarget = Duration.ofMillis(250);
+
+        private int hashingThreads = Runtime.getRuntime().availableProcessors();
+
+        private int hashingQueueCapacity = 256;
+
+        private Duration hashingTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Admission {
+        private boolean enabled = true;
+
+        private int clientCapacity = 20;
+
+        private Duration clientRefillPeriod = Duration.ofSeconds(3);
+
+        private int usernameCapacity = 5;
+
+        private Duration usernameRefillPeriod = Duration.ofMinutes(1);
+
+        private int maxTrackedKeys = 100_000;
+    }
+
+    @Data
+    public static class Listing {
+        private boolean approximateCount = true;
+
+        private Duration approximateCountRefresh = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Search {
+        private int maxIndexedUsers = 200_000;
+
+        private String postIndexPath = "post-search.idx";
+
+        private Duration postIndexSaveInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class UsernameFilter {
+        private long expectedUsers = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+    }
+
+    @Data
+    public static class Feed {
+        private int hotFeedCapacity = 1000;
+
+        private int streamHistorySize = 1000;
+
+        private int streamBufferSize = 256;
+
+        private int maxStreamSubscribers = 10_000;
+
+        private Duration streamTimeout = Duration.ofMinutes(30);
+
+        private Duration streamHeartbeatInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class PostWriteBehind {
+        private boolean enabled = false;
+
+        private int queueCapacity = 10_000;
+
+        private int batchSize = 200;
+
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        private Duration drainTimeout = Duration.ofSeconds(30);
+
+        private String logPath = "post-write-behind.log";
+
+        // The log is written in segments of about this size, each deleted once all its posts are in the database.
+        private DataSize segmentSize = DataSize.ofMegabytes(4);
+    }
+
+    @Data
+    public static class PostCounters {
+        private Duration flushInterval = Duration.ofSeconds(5);
+
+        private boolean reconcileOnStartup = true;
+    }
+
+    @Data
+    public static class Attachments {
+        private DataSize maxSize = DataSize.ofMegabytes(10);
+
+        private int maxConcurrentUploads = 4;
+
+        private Duration uploadWaitTimeout = Duration.ofSeconds(2);
+
+        private Duration orphanTtl = Duration.ofHours(1);
+
+        private Duration orphanCleanupInterval = Duration.ofMinutes(15);
+    }
+
+    @Data
+    public static class Ids {
+        // Must differ between nodes writing to the same database; 0 to 31.
+        private int nodeId = 0;
+    }
+
+    @Data
+    public static class BulkImport {
+        private int batchSize = 200;
+
+        private int maxRows = 50_000;
+    }
 }
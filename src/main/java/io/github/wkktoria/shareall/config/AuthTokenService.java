@@ -0,0 +1,144 @@
+package io.github.wkktoria.shareall.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+@Service
+public class AuthTokenService {
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> mac;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+    private final TokenRevocationList revocationList;
+
+    public AuthTokenService(final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        AppConfig.Auth auth = appConfig.getAuth();
+        this.accessTokenTtl = auth.getAccessTokenTtl();
+        this.refreshTokenTtl = auth.getRefreshTokenTtl();
+        this.revocationList = new TokenRevocationList();
+
+        SecretKeySpec keySpec = new SecretKeySpec(secretOf(auth.getTokenSecret()), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Gauge.builder("shareall.auth.tokens.revoked", revocationList, TokenRevocationList::size)
+                .register(meterRegistry);
+    }
+
+    public String issueAccessToken(final long userId, final String username) {
+        return issue(ACCESS_TOKEN, userId, username, accessTokenTtl);
+    }
+
+    public String issueRefreshToken(final long userId, final String username) {
+        return issue(REFRESH_TOKEN, userId, username, refreshTokenTtl);
+    }
+
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtl.toSeconds();
+    }
+
+    public Optional<TokenClaims> verify(final String token, final String expectedType) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator == token.length() - 1) {
+            return Optional.empty();
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return Optional.empty();
+        }
+
+        TokenClaims claims = parse(new String(payload, StandardCharsets.UTF_8));
+        if (claims == null
+                || !claims.getType().equals(expectedType)
+                || claims.getExpiresAt() <= Instant.now().getEpochSecond()
+                || revocationList.isRevoked(claims)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(claims);
+    }
+
+    public void revoke(final TokenClaims claims) {
+        revocationList.revoke(claims);
+    }
+
+    private String issue(final String type, final long userId, final String username, final Duration ttl) {
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+
+        long issuedAt = Instant.now().getEpochSecond();
+        String payload = String.join("|", type, ENCODER.encodeToString(id), Long.toString(userId),
+                Long.toString(issuedAt), Long.toString(issuedAt + ttl.toSeconds()), username);
+
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    private TokenClaims parse(final String payload) {
+        String[] parts = payload.split("\\|", 6);
+        if (parts.length != 6) {
+            return null;
+        }
+
+        try {
+            return new TokenClaims(parts[0], parts[1], Long.parseLong(parts[2]), parts[5],
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(final byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private byte[] secretOf(final String configuredSecret) {
+        if (configuredSecret != null && !configuredSecret.isBlank()) {
+            return configuredSecret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Without a configured secret, tokens stay valid only for the lifetime of this process.
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        return secret;
+    }
+}
@@ -1,14 +1,15 @@
 package io.github.wkktoria.shareall.config;
 
-import io.github.wkktoria.shareall.user.User;
+import io.github.wkktoria.shareall.user.AuthUser;
 import io.github.wkktoria.shareall.user.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-class AuthUserService implements UserDetailsService {
+class AuthUserService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     AuthUserService(final UserRepository userRepository) {
@@ -17,7 +18,7 @@ class AuthUserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username);
+        AuthUser user = userRepository.findAuthUserByUsername(username);
 
         if (user == null) {
             throw new UsernameNotFoundException("User not found");
@@ -25,4 +26,13 @@ class AuthUserService implements UserDetailsService {
 
         return user;
     }
+
+    @Override
+    public UserDetails updatePassword(final UserDetails user, final String newPassword) {
+        AuthUser authUser = (AuthUser) user;
+        userRepository.updatePassword(authUser.getId(), newPassword);
+
+        return new AuthUser(authUser.getId(), authUser.getUsername(), newPassword,
+                authUser.getDisplayName(), authUser.getImage());
+    }
 }
@@ -0,0 +1,41 @@
+package io.github.wkktoria.shareall.config;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+    private final CredentialCache credentialCache;
+
+    CachingAuthenticationProvider(final UserDetailsService userDetailsService,
+                                  final UserDetailsPasswordService userDetailsPasswordService,
+                                  final PasswordEncoder passwordEncoder,
+                                  final CredentialCache credentialCache) {
+        super(passwordEncoder);
+        setUserDetailsService(userDetailsService);
+        setUserDetailsPasswordService(userDetailsPasswordService);
+        this.credentialCache = credentialCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(final UserDetails userDetails,
+                                                  final UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (authentication.getCredentials() == null || userDetails.getPassword() == null) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+
+        String presentedPassword = authentication.getCredentials().toString();
+        if (credentialCache.isVerified(userDetails.getUsername(), presentedPassword, userDetails.getPassword())) {
+            return;
+        }
+
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        credentialCache.put(userDetails.getUsername(), presentedPassword, userDetails.getPassword());
+    }
+}
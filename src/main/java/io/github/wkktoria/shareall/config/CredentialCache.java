@@ -0,0 +1,123 @@
+package io.github.wkktoria.shareall.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class CredentialCache {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final ThreadLocal<Mac> mac;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CredentialCache(final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        AppConfig.Auth auth = appConfig.getAuth();
+        this.ttlNanos = auth.getCredentialCacheTtl().toNanos();
+
+        final int maxSize = auth.getCredentialCacheMaxSize();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        FunctionCounter.builder("shareall.auth.credential-cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("shareall.auth.credential-cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("shareall.auth.credential-cache.hit-rate", this, CredentialCache::getHitRate)
+                .register(meterRegistry);
+        Gauge.builder("shareall.auth.credential-cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isVerified(final String username, final String rawPassword, final String encodedPassword) {
+        Entry entry = entries.get(keyOf(username));
+
+        if (entry == null || entry.expiresAt() - System.nanoTime() <= 0
+                || !MessageDigest.isEqual(entry.digest(), digestOf(username, rawPassword, encodedPassword))) {
+            misses.increment();
+            return false;
+        }
+
+        hits.increment();
+        return true;
+    }
+
+    public void put(final String username, final String rawPassword, final String encodedPassword) {
+        entries.put(keyOf(username),
+                new Entry(digestOf(username, rawPassword, encodedPassword), System.nanoTime() + ttlNanos));
+    }
+
+    public void evict(final String username) {
+        if (username != null) {
+            entries.remove(keyOf(username));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private String keyOf(final String username) {
+        return Base64.getEncoder().encodeToString(hmac("u", username));
+    }
+
+    // Covers the stored hash as well, so an entry can never match once the password has changed.
+    private byte[] digestOf(final String username, final String rawPassword, final String encodedPassword) {
+        return hmac("c", username, rawPassword, encodedPassword);
+    }
+
+    private byte[] hmac(final String... parts) {
+        Mac instance = mac.get();
+        for (String part : parts) {
+            instance.update(part.getBytes(StandardCharsets.UTF_8));
+            instance.update((byte) 0);
+        }
+        return instance.doFinal();
+    }
+
+    private record Entry(byte[] digest, long expiresAt) {
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.wkktoria.shareall.config;
+
+import io.github.wkktoria.shareall.shared.TimeOrderedIdGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+class IdGeneratorConfig {
+    // Hibernate creates the generators itself, so the node id reaches them as a Hibernate setting.
+    @Bean
+    HibernatePropertiesCustomizer timeOrderedIdNode(final AppConfig appConfig) {
+        return properties -> properties.put(TimeOrderedIdGenerator.NODE_ID_SETTING, appConfig.getIds().getNodeId());
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.wkktoria.shareall.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+class MultipartConfig {
+    // Room for the part headers and the other form fields around the file.
+    static final DataSize REQUEST_OVERHEAD = DataSize.ofMegabytes(1);
+
+    // The servlet container rejects oversized parts before any controller runs, so its limits follow the largest
+    // upload the application accepts rather than a separate hardcoded value.
+    @Bean
+    MultipartConfigElement multipartConfigElement(final MultipartProperties multipartProperties,
+                                                  final AppConfig appConfig) {
+        long maxFileSize = Math.max(appConfig.getAttachments().getMaxSize().toBytes(),
+                appConfig.getMaxProfileImageSize().toBytes());
+
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setLocation(multipartProperties.getLocation());
+        factory.setFileSizeThreshold(multipartProperties.getFileSizeThreshold());
+        factory.setMaxFileSize(DataSize.ofBytes(maxFileSize));
+        factory.setMaxRequestSize(DataSize.ofBytes(maxFileSize + REQUEST_OVERHEAD.toBytes()));
+        return factory.createMultipartConfig();
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.wkktoria.shareall.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+class PasswordHashingConfig {
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final int CALIBRATION_STRENGTH = 8;
+
+    @Bean
+    PasswordEncoder passwordEncoder(final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        AppConfig.Password password = appConfig.getPassword();
+
+        int bcryptStrength = password.isCalibrate()
+                ? calibrateBCryptStrength(password.getCalibrationTarget())
+                : password.getBcryptStrength();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8(),
+                "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(password.getAlgorithm())) {
+            throw new IllegalStateException("Unsupported password hashing algorithm: " + password.getAlgorithm());
+        }
+
+        // Hashes stored before encoders were prefixed with their id are plain BCrypt.
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(password.getAlgorithm(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new PooledPasswordEncoder(delegating, password, meterRegistry);
+    }
+
+    // Every additional BCrypt round doubles the cost, so one measurement is enough to extrapolate.
+    static int calibrateBCryptStrength(final Duration target) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(CALIBRATION_STRENGTH);
+        probe.encode("calibration");
+
+        long start = System.nanoTime();
+        probe.encode("calibration");
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        double doublings = Math.log((double) target.toNanos() / elapsed) / Math.log(2);
+        int strength = CALIBRATION_STRENGTH + (int) Math.round(doublings);
+
+        return Math.clamp(strength, MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH);
+    }
+}
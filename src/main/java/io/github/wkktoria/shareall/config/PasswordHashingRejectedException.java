@@ -0,0 +1,13 @@
+package io.github.wkktoria.shareall.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingRejectedException extends RuntimeException {
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    public PasswordHashingRejectedException(final String message) {
+        super(message);
+    }
+}
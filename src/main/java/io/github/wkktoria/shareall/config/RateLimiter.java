@@ -0,0 +1,108 @@
+package io.github.wkktoria.shareall.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets kept as a single "theoretical arrival time" per key (GCRA), updated with CAS.
+class RateLimiter {
+    private static final long PURGE_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final int maxKeys;
+    private final long origin = System.nanoTime();
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    RateLimiter(final int capacity, final Duration refillPeriod, final int maxKeys) {
+        this.emissionInterval = refillPeriod.toNanos();
+        this.burstTolerance = emissionInterval * Math.max(0, capacity - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    boolean tryAcquire(final String key) {
+        AtomicLong bucket = bucketOf(key);
+        if (bucket == null) {
+            return true;
+        }
+
+        while (true) {
+            long now = now();
+            long theoreticalArrival = bucket.get();
+            long next = Math.max(theoreticalArrival, now) + emissionInterval;
+
+            if (next - now > burstTolerance + emissionInterval) {
+                return false;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    boolean isExhausted(final String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return false;
+        }
+
+        long now = now();
+        return Math.max(bucket.get(), now) + emissionInterval - now > burstTolerance + emissionInterval;
+    }
+
+    // Gives back a token taken by tryAcquire; a bucket never fills past its capacity.
+    void refund(final String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.updateAndGet(theoreticalArrival -> Math.max(now(), theoreticalArrival - emissionInterval));
+        }
+    }
+
+    long retryAfterSeconds(final String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+
+        long wait = bucket.get() - now() - burstTolerance;
+        return Math.max(1, Duration.ofNanos(wait).toSeconds() + 1);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucketOf(final String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxKeys) {
+            purgeIdle();
+            // Rather than evicting live buckets, requests from keys that do not fit are not tracked.
+            if (buckets.size() >= maxKeys) {
+                return null;
+            }
+        }
+
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now()));
+    }
+
+    // A bucket whose arrival time has passed is full again and carries no state worth keeping.
+    private void purgeIdle() {
+        long now = now();
+        long previous = lastPurge.get();
+        if (now - previous < PURGE_INTERVAL_NANOS || !lastPurge.compareAndSet(previous, now)) {
+            return;
+        }
+
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+}
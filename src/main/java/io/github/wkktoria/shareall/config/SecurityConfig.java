@@ -1,33 +1,61 @@
 package io.github.wkktoria.shareall.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Set;
+
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 @Configuration
 class SecurityConfig {
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http, AuthTokenService authTokenService,
+                                           AppConfig appConfig, MeterRegistry meterRegistry) throws Exception {
+        BasicAuthenticationEntryPoint authenticationEntryPoint = new BasicAuthenticationEntryPoint();
+
         http.csrf(AbstractHttpConfigurer::disable);
         http.headers(AbstractHttpConfigurer::disable);
         http.httpBasic(httpBasicConfigurer -> httpBasicConfigurer
-                .authenticationEntryPoint(new BasicAuthenticationEntryPoint()));
+                .authenticationEntryPoint(authenticationEntryPoint));
+        if (appConfig.getAdmission().isEnabled()) {
+            http.addFilterBefore(new AdmissionControlFilter(appConfig.getAdmission(), meterRegistry),
+                    BasicAuthenticationFilter.class);
+        }
+        http.addFilterBefore(new PasswordHashingRejectionFilter(), BasicAuthenticationFilter.class);
+        http.addFilterBefore(new BearerTokenAuthenticationFilter(authTokenService, authenticationEntryPoint),
+                BasicAuthenticationFilter.class);
+        http.addFilterAfter(new UploadAdmissionFilter(appConfig.getAttachments()), AuthorizationFilter.class);
 
         http.authorizeHttpRequests((authentication) -> authentication
                 .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/1.0/login")).authenticated()
+                .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/1.0/logout")).authenticated()
                 .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.PUT, "/api/1.0/users/{id:[0-9]+}")).authenticated()
+                .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.PUT, "/api/1.0/users/{id:[0-9]+}/image")).authenticated()
                 .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/1.0/posts")).authenticated()
+                .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/1.0/attachments")).authenticated()
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/actuator/metrics/**")).authenticated()
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/api/1.0/admin/**"))
+                .access(adminOnly(appConfig.getAuth().getAdminUsernames()))
                 .anyRequest().permitAll()
         );
 
@@ -37,8 +65,19 @@ class SecurityConfig {
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> adminOnly(final Set<String> adminUsernames) {
+        AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+        return (authentication, context) -> {
+            Authentication current = authentication.get();
+            return new AuthorizationDecision(trustResolver.isAuthenticated(current)
+                    && adminUsernames.contains(current.getName()));
+        };
+    }
+
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    AuthenticationProvider authenticationProvider(final AuthUserService authUserService,
+                                                  final PasswordEncoder passwordEncoder,
+                                                  final CredentialCache credentialCache) {
+        return new CachingAuthenticationProvider(authUserService, authUserService, passwordEncoder, credentialCache);
     }
 }
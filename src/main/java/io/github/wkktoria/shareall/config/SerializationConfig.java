@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.github.wkktoria.shareall.shared.CursorPage;
+import io.github.wkktoria.shareall.shared.EstimatedSlice;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.io.IOException;
 
@@ -34,6 +37,46 @@ class SerializationConfig {
             }
         };
 
-        return new SimpleModule().addSerializer(Page.class, pageSerializer);
+        JsonSerializer<CursorPage> cursorPageSerializer = new JsonSerializer<>() {
+            @Override
+            public void serialize(final CursorPage value, final JsonGenerator generator, final SerializerProvider serializers) throws IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("numberOfElements", value.getNumberOfElements());
+                generator.writeNumberField("size", value.getSize());
+                generator.writeBooleanField("first", value.isFirst());
+                generator.writeBooleanField("last", !value.hasNext());
+                generator.writeBooleanField("next", value.hasNext());
+                generator.writeStringField("nextCursor", value.getNextCursor());
+                generator.writeStringField("prevCursor", value.getPrevCursor());
+                generator.writeFieldName("content");
+                serializers.defaultSerializeValue(value.getContent(), generator);
+                generator.writeEndObject();
+            }
+        };
+
+        JsonSerializer<Slice> sliceSerializer = new JsonSerializer<>() {
+            @Override
+            public void serialize(final Slice value, final JsonGenerator generator, final SerializerProvider serializers) throws IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("numberOfElements", value.getNumberOfElements());
+                if (value instanceof EstimatedSlice<?> estimated && estimated.getApproximateTotalElements() >= 0) {
+                    generator.writeNumberField("approximateTotalElements", estimated.getApproximateTotalElements());
+                }
+                generator.writeNumberField("number", value.getNumber());
+                generator.writeNumberField("size", value.getSize());
+                generator.writeBooleanField("first", value.isFirst());
+                generator.writeBooleanField("last", value.isLast());
+                generator.writeBooleanField("previous", value.hasPrevious());
+                generator.writeBooleanField("next", value.hasNext());
+                generator.writeFieldName("content");
+                serializers.defaultSerializeValue(value.getContent(), generator);
+                generator.writeEndObject();
+            }
+        };
+
+        return new SimpleModule()
+                .addSerializer(Page.class, pageSerializer)
+                .addSerializer(Slice.class, sliceSerializer)
+                .addSerializer(CursorPage.class, cursorPageSerializer);
     }
 }
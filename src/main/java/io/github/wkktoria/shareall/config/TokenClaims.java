@@ -0,0 +1,18 @@
+package io.github.wkktoria.shareall.config;
+
+import lombok.Value;
+
+@Value
+public class TokenClaims {
+    String type;
+
+    String id;
+
+    long userId;
+
+    String username;
+
+    long issuedAt;
+
+    long expiresAt;
+}
@@ -0,0 +1,36 @@
+package io.github.wkktoria.shareall.config;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TokenRevocationList {
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+
+    void revoke(final TokenClaims claims) {
+        revokedTokens.put(claims.getId(), claims.getExpiresAt());
+
+        if (revocationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            revocationsSincePurge.set(0);
+            purgeExpired();
+        }
+    }
+
+    boolean isRevoked(final TokenClaims claims) {
+        return revokedTokens.containsKey(claims.getId());
+    }
+
+    int size() {
+        return revokedTokens.size();
+    }
+
+    // Revoked tokens only need to be remembered until they would have expired anyway.
+    void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.wkktoria.shareall.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// The servlet spools the whole multipart body before the controller runs, so attachment uploads are admitted here,
+// ahead of that, for the concurrency limit to cover the disk and temp space they use as well.
+class UploadAdmissionFilter extends OncePerRequestFilter {
+    private final RequestMatcher uploadMatcher = AntPathRequestMatcher.antMatcher(HttpMethod.POST,
+            "/api/1.0/attachments");
+    private final AppConfig.Attachments attachments;
+    private final Semaphore uploads;
+
+    UploadAdmissionFilter(final AppConfig.Attachments attachments) {
+        this.attachments = attachments;
+        this.uploads = new Semaphore(attachments.getMaxConcurrentUploads());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !uploadMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (request.getContentLengthLong() > attachments.getMaxSize().toBytes()
+                + MultipartConfig.REQUEST_OVERHEAD.toBytes()) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Attachment is too large");
+            return;
+        }
+
+        try {
+            if (!uploads.tryAcquire(attachments.getUploadWaitTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many uploads in progress");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Interrupted while waiting to upload");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            uploads.release();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.wkktoria.shareall.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(final String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
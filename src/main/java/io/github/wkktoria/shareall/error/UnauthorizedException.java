@@ -0,0 +1,11 @@
+package io.github.wkktoria.shareall.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class UnauthorizedException extends RuntimeException {
+    public UnauthorizedException(final String message) {
+        super(message);
+    }
+}
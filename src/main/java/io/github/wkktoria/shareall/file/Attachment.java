@@ -0,0 +1,47 @@
+package io.github.wkktoria.shareall.file;
+
+import io.github.wkktoria.shareall.user.User;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Date;
+
+@Entity
+@Table(indexes = @Index(name = "idx_attachment_name", columnList = "name"))
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class Attachment {
+    @Id
+    @GeneratedValue
+    private long id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date date;
+
+    // Hex SHA-256 of the content, which is also the file name, so identical uploads share one file.
+    private String name;
+
+    private String fileType;
+
+    private long size;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User owner;
+}
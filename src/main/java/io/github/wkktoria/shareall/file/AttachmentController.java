@@ -0,0 +1,90 @@
+package io.github.wkktoria.shareall.file;
+
+import io.github.wkktoria.shareall.file.viewmodel.AttachmentViewModel;
+import io.github.wkktoria.shareall.shared.annotation.CurrentUser;
+import io.github.wkktoria.shareall.user.AuthUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/1.0")
+class AttachmentController {
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	// Only types a browser renders without running anything are served inline; HTML, SVG and the rest could carry
+	// script that would run on this origin, so they are downloaded instead.
+	private static final Set<String> INLINE_TYPES = Set.of(MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE,
+			MediaType.IMAGE_GIF_VALUE, "image/webp");
+
+	private final AttachmentService attachmentService;
+
+	AttachmentController(final AttachmentService attachmentService) {
+		this.attachmentService = attachmentService;
+	}
+
+	@PostMapping("/attachments")
+	AttachmentViewModel uploadAttachment(@RequestParam("file") final MultipartFile file,
+			@CurrentUser final AuthUser user) throws IOException {
+		return new AttachmentViewModel(attachmentService.save(user.getId(), file));
+	}
+
+	@GetMapping("/attachments/{name:[0-9a-f]{64}}")
+	void getAttachment(@PathVariable final String name, final WebRequest webRequest,
+			final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+		Attachment attachment = attachmentService.getByName(name);
+		// Names are content hashes, so the name is a strong validator and the bytes never change.
+		if (webRequest.checkNotModified("\"" + name + "\"")) {
+			return;
+		}
+
+		Path file = attachmentService.pathOf(attachment);
+		if (INLINE_TYPES.contains(attachment.getFileType())) {
+			response.setContentType(attachment.getFileType());
+		} else {
+			response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().build().toString());
+		}
+		response.setHeader("X-Content-Type-Options", "nosniff");
+		response.setContentLengthLong(attachment.getSize());
+		response.setHeader(HttpHeaders.CACHE_CONTROL,
+				CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue());
+
+		// Tomcat hands the file to the kernel with sendfile, so the bytes never pass through the JVM.
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, attachment.getSize());
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < attachment.getSize()) {
+				position += channel.transferTo(position, attachment.getSize() - position, out);
+			}
+		}
+	}
+}
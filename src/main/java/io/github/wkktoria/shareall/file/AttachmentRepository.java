@@ -0,0 +1,20 @@
+package io.github.wkktoria.shareall.file;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+    Optional<Attachment> findFirstByName(final String name);
+
+    boolean existsByName(final String name);
+
+    @Query("select a from Attachment a where a.date < :cutoff "
+            + "and not exists (select p.id from Post p where p.attachment = a)")
+    List<Attachment> findUnlinkedBefore(final Date cutoff);
+}
@@ -0,0 +1,146 @@
+package io.github.wkktoria.shareall.file;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.error.NotFoundException;
+import io.github.wkktoria.shareall.user.UserRepository;
+import org.apache.tika.Tika;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+@Service
+public class AttachmentService {
+    private static final int COPY_BUFFER_SIZE = 8192;
+    // Large enough for every magic-byte pattern Tika checks before it resets the stream.
+    private static final int SNIFF_BUFFER_SIZE = 64 * 1024;
+
+    private final AttachmentRepository attachmentRepository;
+    private final UserRepository userRepository;
+    private final Tika tika = new Tika();
+    private final AppConfig.Attachments attachments;
+    private final Path folder;
+
+    AttachmentService(final AttachmentRepository attachmentRepository, final UserRepository userRepository,
+                      final AppConfig appConfig) {
+        this.attachmentRepository = attachmentRepository;
+        this.userRepository = userRepository;
+        this.attachments = appConfig.getAttachments();
+        this.folder = Path.of(appConfig.getFullAttachmentsPath());
+    }
+
+    // Concurrency is limited by UploadAdmissionFilter, before the body is spooled.
+    public Attachment save(final long ownerId, final MultipartFile file) throws IOException {
+        if (file.getSize() > attachments.getMaxSize().toBytes()) {
+            throw tooLarge();
+        }
+        return store(ownerId, file);
+    }
+
+    public Attachment getByName(final String name) {
+        return attachmentRepository.findFirstByName(name)
+                .orElseThrow(() -> new NotFoundException(name + " not found"));
+    }
+
+    public Path pathOf(final Attachment attachment) {
+        return folder.resolve(attachment.getName());
+    }
+
+    // Uploads that never made it into a post are removed once they are old enough that nobody is still composing one.
+    @Scheduled(fixedDelayString = "#{@appConfig.attachments.orphanCleanupInterval.toMillis()}")
+    @Transactional
+    public void deleteOrphans() {
+        Date cutoff = new Date(System.currentTimeMillis() - attachments.getOrphanTtl().toMillis());
+        List<Attachment> orphans = attachmentRepository.findUnlinkedBefore(cutoff);
+        attachmentRepository.deleteAll(orphans);
+        attachmentRepository.flush();
+
+        for (Attachment orphan : orphans) {
+            if (!attachmentRepository.existsByName(orphan.getName())) {
+                deleteFileOlderThan(pathOf(orphan), cutoff);
+            }
+        }
+    }
+
+    // A fresh upload of the same content replaces the file before its row exists, which makes the file new again.
+    private static void deleteFileOlderThan(final Path file, final Date cutoff) {
+        try {
+            if (Files.exists(file) && Files.getLastModifiedTime(file).toMillis() < cutoff.getTime()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    // The part is copied once, from the servlet's spool straight to our folder; the hash and the type are taken
+    // from the same pass, so the body never sits in the heap beyond one copy buffer and the sniffing window.
+    private Attachment store(final long ownerId, final MultipartFile file) throws IOException {
+        Files.createDirectories(folder);
+        Path temporary = Files.createTempFile(folder, "upload-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            String fileType;
+            long size = 0;
+            try (InputStream in = new BufferedInputStream(file.getInputStream(), SNIFF_BUFFER_SIZE);
+                 OutputStream out = Files.newOutputStream(temporary)) {
+                fileType = tika.detect(in, file.getOriginalFilename());
+
+                InputStream hashing = new DigestInputStream(in, sha256);
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = hashing.read(buffer)) != -1) {
+                    size += read;
+                    if (size > attachments.getMaxSize().toBytes()) {
+                        throw tooLarge();
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String name = HexFormat.of().formatHex(sha256.digest());
+            try {
+                Files.move(temporary, folder.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same content was uploaded before; keep the existing file.
+            }
+
+            Attachment attachment = new Attachment();
+            attachment.setDate(new Date());
+            attachment.setName(name);
+            attachment.setFileType(fileType);
+            attachment.setSize(size);
+            attachment.setOwner(userRepository.getReferenceById(ownerId));
+            return attachmentRepository.save(attachment);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private AttachmentTooLargeException tooLarge() {
+        return new AttachmentTooLargeException("Attachments are limited to " + attachments.getMaxSize());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.wkktoria.shareall.file;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class AttachmentTooLargeException extends RuntimeException {
+    public AttachmentTooLargeException(final String message) {
+        super(message);
+    }
+}
@@ -1,39 +1,95 @@
 package io.github.wkktoria.shareall.file;
 
 import io.github.wkktoria.shareall.config.AppConfig;
-import org.apache.commons.io.FileUtils;
+import io.github.wkktoria.shareall.shared.validator.ProfileImageValidator;
+import org.apache.commons.io.input.CharSequenceInputStream;
 import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.UUID;
 
 @Service
 public class FileService {
+    private static final int BUFFER_SIZE = 8192;
+    // Every signature Tika needs for images lives well inside the first few hundred bytes.
+    private static final int HEADER_SIZE = 512;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
     private final AppConfig appConfig;
     private final Tika tika;
+    private final ProfileImageUploads uploads;
 
     public FileService(final AppConfig appConfig) {
+        this(appConfig, null);
+    }
+
+    @Autowired
+    FileService(final AppConfig appConfig, final ProfileImageUploads uploads) {
         this.appConfig = appConfig;
         this.tika = new Tika();
+        this.uploads = uploads;
+    }
+
+    // The type comes from the decoded header alone. Inside a request a supported image is then decoded to disk
+    // once, here, and reused by saveProfileImage; anything else is rejected without decoding the rest.
+    public String detectProfileImageType(final String base64Image) throws IOException {
+        InputStream decoded = decoding(base64Image);
+        byte[] header = decoded.readNBytes(HEADER_SIZE);
+        String fileType = detectType(header, header.length);
+        if (inRequest() && ProfileImageValidator.isSupported(fileType) && uploads.get(base64Image) == null) {
+            uploads.put(base64Image, upload(decoded, header, Long.MAX_VALUE));
+        }
+        return fileType;
     }
 
     public String saveProfileImage(final String base64Image) throws IOException {
-        String imageName = UUID.randomUUID().toString().replace("-", "");
-        byte[] decodedBytes = Base64.getDecoder().decode(base64Image);
+        if (!inRequest()) {
+            return saveProfileImage(upload(decoding(base64Image)));
+        }
+        return saveProfileImage(decodeOnce(base64Image));
+    }
 
-        File target = new File(appConfig.getFullProfileImagesPath() + "/" + imageName);
-        FileUtils.writeByteArrayToFile(target, decodedBytes);
+    public String saveProfileImage(final InputStream image) throws IOException {
+        return saveProfileImage(upload(image));
+    }
 
+    public String saveProfileImage(final UploadedImage image) throws IOException {
+        String imageName = UUID.randomUUID().toString().replace("-", "");
+        try (image) {
+            Files.move(image.getFile(), image.getFile().resolveSibling(imageName), StandardCopyOption.ATOMIC_MOVE);
+        }
         return imageName;
     }
 
+    public UploadedImage upload(final InputStream in) throws IOException {
+        return upload(in, in.readNBytes(HEADER_SIZE), Long.MAX_VALUE);
+    }
+
+    // Binary uploads carry no Content-Length guarantee, so the limit is enforced while the bytes arrive. The type
+    // is checked on the header before anything is written.
+    public UploadedImage uploadProfileImage(final InputStream in) throws IOException {
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        if (!ProfileImageValidator.isSupported(detectType(header, header.length))) {
+            throw new UnsupportedProfileImageException("Only PNG and JPG files are allowed");
+        }
+        return upload(in, header, appConfig.getMaxProfileImageSize().toBytes());
+    }
+
     public String detectType(byte[] fileArray) {
-        return tika.detect(fileArray);
+        return detectType(fileArray, fileArray.length);
     }
 
     public void deleteProfileImage(String image) {
@@ -43,4 +99,68 @@ public class FileService {
             System.err.println(e.getMessage());
         }
     }
+
+    // Writes the already-read header and the rest of the stream to a temporary file; the type comes from the header.
+    private UploadedImage upload(final InputStream rest, final byte[] header, final long maxSize) throws IOException {
+        Path folder = Paths.get(appConfig.getFullProfileImagesPath());
+        Files.createDirectories(folder);
+        Path temporary = Files.createTempFile(folder, "upload-", ".tmp");
+
+        long size = header.length;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream source = rest;
+             OutputStream sink = Files.newOutputStream(temporary)) {
+            sink.write(header);
+            int read;
+            while (size <= maxSize && (read = source.read(buffer)) != -1) {
+                size += read;
+                sink.write(buffer, 0, read);
+            }
+            if (size > maxSize) {
+                throw new ProfileImageTooLargeException("Profile images are limited to "
+                        + appConfig.getMaxProfileImageSize());
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        return new UploadedImage(temporary, detectType(header, header.length));
+    }
+
+    private UploadedImage decodeOnce(final String base64Image) throws IOException {
+        UploadedImage image = uploads.get(base64Image);
+        if (image == null) {
+            image = upload(decoding(base64Image));
+            uploads.put(base64Image, image);
+        }
+        return image;
+    }
+
+    private String detectType(final byte[] header, final int length) {
+        if (startsWith(header, length, PNG_SIGNATURE)) {
+            return "image/png";
+        }
+        if (startsWith(header, length, JPEG_SIGNATURE)) {
+            return "image/jpeg";
+        }
+        return tika.detect(Arrays.copyOf(header, Math.min(length, HEADER_SIZE)));
+    }
+
+    private boolean inRequest() {
+        return uploads != null && RequestContextHolder.getRequestAttributes() != null;
+    }
+
+    private static boolean startsWith(final byte[] header, final int length, final byte[] signature) {
+        return length >= signature.length
+                && Arrays.equals(header, 0, signature.length, signature, 0, signature.length);
+    }
+
+    // Decodes while reading the string, so the image is never held in memory as a whole decoded array.
+    private static InputStream decoding(final String base64Image) throws IOException {
+        return Base64.getDecoder().wrap(CharSequenceInputStream.builder()
+                .setCharSequence(base64Image)
+                .setCharset(StandardCharsets.US_ASCII)
+                .get());
+    }
 }
@@ -0,0 +1,33 @@
+package io.github.wkktoria.shareall.file;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Lets the validator and the save in one request share a single decode of the same Base64 value.
+@Component
+@RequestScope
+class ProfileImageUploads implements DisposableBean {
+    // Keyed by identity: both steps see the very string Jackson produced, and hashing megabytes of it is wasted work.
+    private final Map<String, UploadedImage> decoded = new IdentityHashMap<>();
+
+    UploadedImage get(final String base64Image) {
+        return decoded.get(base64Image);
+    }
+
+    void put(final String base64Image, final UploadedImage image) {
+        decoded.put(base64Image, image);
+    }
+
+    // Whatever was validated but never saved is removed when the request ends.
+    @Override
+    public void destroy() throws IOException {
+        for (UploadedImage image : decoded.values()) {
+            image.close();
+        }
+    }
+}
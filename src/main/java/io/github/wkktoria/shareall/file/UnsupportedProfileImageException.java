@@ -0,0 +1,11 @@
+package io.github.wkktoria.shareall.file;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedProfileImageException extends RuntimeException {
+    public UnsupportedProfileImageException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.wkktoria.shareall.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// A decoded upload waiting in the profile folder under a temporary name until it is saved or discarded.
+public final class UploadedImage implements Closeable {
+    private final Path file;
+    private final String fileType;
+
+    UploadedImage(final Path file, final String fileType) {
+        this.file = file;
+        this.fileType = fileType;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
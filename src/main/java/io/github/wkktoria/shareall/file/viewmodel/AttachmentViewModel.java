@@ -0,0 +1,28 @@
+package io.github.wkktoria.shareall.file.viewmodel;
+
+import io.github.wkktoria.shareall.file.Attachment;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class AttachmentViewModel {
+    private long id;
+    private String name;
+    private String fileType;
+    private long size;
+
+    public AttachmentViewModel(final Attachment attachment) {
+        this.setId(attachment.getId());
+        this.setName(attachment.getName());
+        this.setFileType(attachment.getFileType());
+        this.setSize(attachment.getSize());
+    }
+
+    public AttachmentViewModel(final long id, final String name, final String fileType, final long size) {
+        this.setId(id);
+        this.setName(name);
+        this.setFileType(fileType);
+        this.setSize(size);
+    }
+}
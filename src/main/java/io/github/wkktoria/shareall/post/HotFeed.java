@@ -0,0 +1,135 @@
+package io.github.wkktoria.shareall.post;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import io.github.wkktoria.shareall.shared.CursorPage;
+import io.github.wkktoria.shareall.shared.Cursors;
+import io.github.wkktoria.shareall.user.UserUpdatedEvent;
+import io.github.wkktoria.shareall.user.viewmodel.UserViewModel;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+class HotFeed {
+    private final PostRepository postRepository;
+    private final int capacity;
+
+    // Posts ordered by id descending. Writers replace the whole array, so readers never need a lock.
+    private volatile Snapshot snapshot = new Snapshot(new PostViewModel[0], false);
+
+    HotFeed(final PostRepository postRepository, final AppConfig appConfig) {
+        this.postRepository = postRepository;
+        this.capacity = appConfig.getFeed().getHotFeedCapacity();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    synchronized void warm() {
+        List<PostViewModel> newest = postRepository.findFeedBefore(Long.MAX_VALUE, Limit.of(capacity));
+        snapshot = new Snapshot(newest.toArray(PostViewModel[]::new), newest.size() < capacity);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    synchronized void onPostCreated(final PostCreatedEvent event) {
+        PostViewModel post = event.getPost();
+        PostViewModel[] posts = snapshot.posts;
+
+        int position = firstOlderThan(posts, post.getId() + 1);
+        if (position < posts.length && posts[position].getId() == post.getId()) {
+            return;
+        }
+
+        int length = Math.min(posts.length + 1, capacity);
+        if (position >= length) {
+            snapshot = new Snapshot(posts, false);
+            return;
+        }
+
+        PostViewModel[] updated = new PostViewModel[length];
+        System.arraycopy(posts, 0, updated, 0, position);
+        updated[position] = post;
+        System.arraycopy(posts, position, updated, position + 1, length - position - 1);
+        snapshot = new Snapshot(updated, snapshot.complete && posts.length < capacity);
+    }
+
+    @EventListener
+    synchronized void onUserUpdated(final UserUpdatedEvent event) {
+        UserViewModel author = event.getUser();
+        PostViewModel[] posts = snapshot.posts.clone();
+        for (int i = 0; i < posts.length; i++) {
+            if (posts[i].getUser().getId() == author.getId()) {
+                posts[i] = withAuthor(posts[i], author);
+            }
+        }
+        snapshot = new Snapshot(posts, snapshot.complete);
+    }
+
+    Optional<CursorPage<PostViewModel>> before(final Long beforeId, final int size) {
+        Snapshot current = snapshot;
+        PostViewModel[] posts = current.posts;
+
+        int from = beforeId == null ? 0 : firstOlderThan(posts, beforeId);
+        int available = posts.length - from;
+        if (available <= size && !current.complete) {
+            return Optional.empty();
+        }
+
+        List<PostViewModel> rows = Arrays.asList(posts).subList(from, from + Math.min(available, size + 1));
+        String cursor = beforeId == null ? null : Cursors.encode(beforeId);
+        return Optional.of(CursorPage.of(rows, size, cursor, PostViewModel::getId));
+    }
+
+    // Every post newer than the oldest cached one is cached, so "newer than X" is answerable whenever X is covered.
+    Optional<CursorPage<PostViewModel>> after(final long afterId, final int size) {
+        Snapshot current = snapshot;
+        PostViewModel[] posts = current.posts;
+
+        boolean covered = current.complete || (posts.length > 0 && afterId >= posts[posts.length - 1].getId());
+        if (!covered) {
+            return Optional.empty();
+        }
+
+        int newer = firstOlderThan(posts, afterId + 1);
+        int from = Math.max(0, newer - (size + 1));
+        List<PostViewModel> rows = Arrays.asList(posts).subList(from, newer).reversed();
+        return Optional.of(CursorPage.newerThan(rows, size, Cursors.encode(afterId), PostViewModel::getId));
+    }
+
+    // Index of the first post whose id is lower than the given id.
+    private static int firstOlderThan(final PostViewModel[] posts, final long id) {
+        int low = 0;
+        int high = posts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (posts[middle].getId() >= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static PostViewModel withAuthor(final PostViewModel post, final UserViewModel author) {
+        PostViewModel copy = new PostViewModel();
+        copy.setId(post.getId());
+        copy.setContent(post.getContent());
+        copy.setDate(post.getDate());
+        copy.setAttachment(post.getAttachment());
+        copy.setUser(new UserViewModel());
+        copy.getUser().setId(author.getId());
+        copy.getUser().setUsername(author.getUsername());
+        copy.getUser().setDisplayName(author.getDisplayName());
+        copy.getUser().setImage(author.getImage());
+        return copy;
+    }
+
+    private record Snapshot(PostViewModel[] posts, boolean complete) {
+    }
+}
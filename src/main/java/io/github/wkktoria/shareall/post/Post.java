@@ -2,12 +2,18 @@ package io.github.wkktoria.shareall.post;
 
 import java.util.Date;
 
+import io.github.wkktoria.shareall.file.Attachment;
+import io.github.wkktoria.shareall.shared.annotation.TimeOrderedId;
 import io.github.wkktoria.shareall.user.User;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 import jakarta.validation.constraints.NotNull;
@@ -20,6 +26,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_post_user_id_id", columnList = "user_id, id"))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -28,7 +35,7 @@ import lombok.ToString;
 @EqualsAndHashCode
 public class Post {
 	@Id
-	@GeneratedValue
+	@TimeOrderedId
 	private long id;
 
 	@NotNull
@@ -38,7 +45,13 @@ public class Post {
 
 	@Temporal(TemporalType.TIMESTAMP)
 	private Date timestamp;
-	
+
 	@ManyToOne
 	private User user;
+
+	@OneToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "attachment_id", unique = true)
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Attachment attachment;
 }
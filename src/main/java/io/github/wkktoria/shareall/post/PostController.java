@@ -1,26 +1,75 @@
 package io.github.wkktoria.shareall.post;
 
+import java.io.IOException;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.util.DisconnectedClientHelper;
 
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import io.github.wkktoria.shareall.shared.CursorPage;
 import io.github.wkktoria.shareall.shared.annotation.CurrentUser;
-import io.github.wkktoria.shareall.user.User;
+import io.github.wkktoria.shareall.user.AuthUser;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/1.0")
 class PostController {
+	private static final DisconnectedClientHelper DISCONNECTS = new DisconnectedClientHelper(
+			PostController.class.getName() + ".disconnects");
+
 	private final PostService postService;
+	private final PostStream postStream;
 
-	PostController(final PostService postService) {
+	PostController(final PostService postService, final PostStream postStream) {
 		this.postService = postService;
+		this.postStream = postStream;
 	}
 
 	@PostMapping("/posts")
-	void createPost(@Valid @RequestBody Post post, @CurrentUser User user) {
+	void createPost(@Valid @RequestBody Post post, @CurrentUser AuthUser user) {
 		postService.save(user, post);
 	}
 
+	@GetMapping("/posts")
+	CursorPage<PostViewModel> getPosts(@RequestParam(required = false) final String before,
+			@RequestParam(required = false) final String after, final Pageable pageable) {
+		return postService.getPosts(before, after, pageable.getPageSize());
+	}
+
+	@GetMapping(path = "/posts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	SseEmitter streamPosts(@RequestHeader(name = "Last-Event-ID", required = false) final Long lastEventId) {
+		return postStream.subscribe(lastEventId);
+	}
+
+	// A stream subscriber that went away is reported once more when its request completes; only log it at debug.
+	@ExceptionHandler(IOException.class)
+	void handleStreamIOException(final IOException exception) throws IOException {
+		if (!DISCONNECTS.checkAndLogClientDisconnectedException(exception)) {
+			throw exception;
+		}
+	}
+
+	@GetMapping("/posts/search")
+	Page<PostViewModel> searchPosts(@RequestParam(defaultValue = "") final String q, final Pageable pageable) {
+		return postService.search(q, pageable);
+	}
+
+	@GetMapping("/users/{username}/posts")
+	CursorPage<PostViewModel> getPostsOfUser(@PathVariable final String username,
+			@RequestParam(required = false) final String before, @RequestParam(required = false) final String after,
+			final Pageable pageable) {
+		return postService.getPostsOfUser(username, before, after, pageable.getPageSize());
+	}
 }
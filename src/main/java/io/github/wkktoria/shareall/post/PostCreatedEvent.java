@@ -0,0 +1,9 @@
+package io.github.wkktoria.shareall.post;
+
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import lombok.Value;
+
+@Value
+public class PostCreatedEvent {
+    PostViewModel post;
+}
@@ -1,8 +1,38 @@
 package io.github.wkktoria.shareall.post;
 
+import io.github.wkktoria.shareall.file.Attachment;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+    String POST_VIEW = "select new io.github.wkktoria.shareall.post.viewmodel.PostViewModel("
+            + "p.id, p.content, p.timestamp, u.id, u.username, u.displayName, u.image, "
+            + "a.id, a.name, a.fileType, a.size) "
+            + "from Post p join p.user u left join p.attachment a ";
+
+    @Query(POST_VIEW + "where p.id < :before order by p.id desc")
+    List<PostViewModel> findFeedBefore(final long before, final Limit limit);
+
+    @Query(POST_VIEW + "where p.id > :after order by p.id asc")
+    List<PostViewModel> findFeedAfter(final long after, final Limit limit);
+
+    @Query(POST_VIEW + "where u.id = :userId and p.id < :before order by p.id desc")
+    List<PostViewModel> findUserFeedBefore(final long userId, final long before, final Limit limit);
+
+    @Query(POST_VIEW + "where u.id = :userId and p.id > :after order by p.id asc")
+    List<PostViewModel> findUserFeedAfter(final long userId, final long after, final Limit limit);
+
+    @Query(POST_VIEW + "where p.id in :ids")
+    List<PostViewModel> findViewsByIdIn(final Collection<Long> ids);
+
+    boolean existsByAttachment(final Attachment attachment);
+
+    List<PostText> findTextByIdGreaterThanOrderByIdAsc(final long id, final Limit limit);
 }
@@ -0,0 +1,436 @@
+package io.github.wkktoria.shareall.post;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+@Component
+class PostSearchIndex implements DisposableBean {
+    private static final int FILE_MAGIC = 0x50534958;
+    private static final int FILE_VERSION = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final PostRepository postRepository;
+    private final Path indexPath;
+    private final Object persistLock = new Object();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, PostingList> postings = new HashMap<>();
+    private Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+    private volatile boolean dirty;
+
+    PostSearchIndex(final PostRepository postRepository, final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.indexPath = Path.of(appConfig.getSearch().getPostIndexPath());
+
+        Gauge.builder("shareall.posts.search-index.size", this, PostSearchIndex::size)
+                .register(meterRegistry);
+    }
+
+    // Starts from the saved index when it is readable, then catches up on posts written since it was saved.
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        boolean loaded = false;
+        if (Files.exists(indexPath)) {
+            try {
+                read();
+                loaded = true;
+            } catch (IOException e) {
+                clear();
+            }
+        }
+
+        if (!loaded) {
+            rebuild();
+            return;
+        }
+        indexPostsAfter(maxIndexedId());
+        if (size() != postRepository.count()) {
+            rebuild();
+        }
+    }
+
+    void rebuild() {
+        clear();
+        indexPostsAfter(Long.MIN_VALUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onPostCreated(final PostCreatedEvent event) {
+        index(event.getPost().getId(), event.getPost().getContent());
+    }
+
+    void index(final long id, final String content) {
+        List<String> tokens = tokenize(content);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (documentLengths.putIfAbsent(id, tokens.size()) != null) {
+                return;
+            }
+            totalLength += tokens.size();
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new PostingList()).add(id, frequency));
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of matching posts, best BM25 score first; ties go to the newer post.
+    Page<Long> search(final String query, final Pageable pageable) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documents = documentLengths.size();
+            double averageLength = documents == 0 ? 0 : (double) totalLength / documents;
+            for (String term : terms) {
+                PostingList posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documents - posting.documents + 0.5) / (posting.documents + 0.5));
+                posting.forEach((id, frequency) -> {
+                    double norm = K1 * (1 - B + B * documentLengths.get(id) / averageLength);
+                    scores.merge(id, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> ids = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+        return new PageImpl<>(ids, pageable, ranked.size());
+    }
+
+    @Scheduled(fixedDelayString = "#{@appConfig.search.postIndexSaveInterval.toMillis()}")
+    void save() {
+        synchronized (persistLock) {
+            try {
+                write();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save post search index to " + indexPath, e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        save();
+    }
+
+    private void indexPostsAfter(final long afterId) {
+        long lastId = afterId;
+        List<PostText> batch;
+        do {
+            batch = postRepository.findTextByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            for (PostText post : batch) {
+                index(post.getId(), post.getContent());
+                lastId = post.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+    }
+
+    private long maxIndexedId() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.keySet().stream().mapToLong(Long::longValue).max().orElse(Long.MIN_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings = new HashMap<>();
+            documentLengths = new HashMap<>();
+            totalLength = 0;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Written beside the live file and moved over it, so a crash mid-save leaves the previous index intact.
+    private void write() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path parent = indexPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, indexPath.getFileName().toString(), ".tmp");
+        try {
+            lock.readLock().lock();
+            try {
+                CRC32 checksum = new CRC32();
+                try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporary)), checksum))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeInt(FILE_VERSION);
+                    out.writeInt(documentLengths.size());
+                    for (Map.Entry<Long, Integer> document : documentLengths.entrySet()) {
+                        out.writeLong(document.getKey());
+                        out.writeInt(document.getValue());
+                    }
+                    out.writeInt(postings.size());
+                    for (Map.Entry<String, PostingList> posting : postings.entrySet()) {
+                        out.writeUTF(posting.getKey());
+                        posting.getValue().writeTo(out);
+                    }
+                    out.flush();
+                    out.writeLong(checksum.getValue());
+                }
+                dirty = false;
+            } finally {
+                lock.readLock().unlock();
+            }
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void read() throws IOException {
+        Map<Long, Integer> readLengths = new HashMap<>();
+        Map<String, PostingList> readPostings = new HashMap<>();
+        long readTotal = 0;
+
+        CRC32 checksum = new CRC32();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(indexPath)), checksum);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unrecognised post search index format");
+            }
+            int documents = in.readInt();
+            for (int i = 0; i < documents; i++) {
+                long id = in.readLong();
+                int length = in.readInt();
+                readLengths.put(id, length);
+                readTotal += length;
+            }
+            int terms = in.readInt();
+            for (int i = 0; i < terms; i++) {
+                readPostings.put(in.readUTF(), PostingList.readFrom(in));
+            }
+            long expected = checksum.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Post search index checksum mismatch");
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = readPostings;
+            documentLengths = readLengths;
+            totalLength = readTotal;
+            dirty = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(final String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // Doc ids ascending, stored as varint gaps each followed by a varint term frequency. Ids that arrive below
+    // the last encoded one wait in a small sorted buffer that readers merge in, and are encoded in bulk when it
+    // fills up or the list is written out.
+    static final class PostingList {
+        private static final int MAX_LATE = 32;
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int documents;
+        private long lastId;
+        private long[] lateIds;
+        private int[] lateFrequencies;
+        private int lateCount;
+
+        void add(final long id, final int frequency) {
+            if (documents > lateCount && id <= lastId) {
+                addLate(id, frequency);
+                return;
+            }
+            append(id - lastId, frequency);
+            lastId = id;
+            documents++;
+        }
+
+        void forEach(final PostingConsumer consumer) {
+            int position = 0;
+            int late = 0;
+            long id = 0;
+            for (int i = lateCount; i < documents; i++) {
+                long gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                int frequency = 0;
+                shift = 0;
+                do {
+                    b = data[position++];
+                    frequency |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                id += gap;
+                for (; late < lateCount && lateIds[late] < id; late++) {
+                    consumer.accept(lateIds[late], lateFrequencies[late]);
+                }
+                consumer.accept(id, frequency);
+            }
+            for (; late < lateCount; late++) {
+                consumer.accept(lateIds[late], lateFrequencies[late]);
+            }
+        }
+
+        private void addLate(final long id, final int frequency) {
+            if (lateIds == null) {
+                lateIds = new long[MAX_LATE];
+                lateFrequencies = new int[MAX_LATE];
+            } else if (lateCount == MAX_LATE) {
+                compact();
+            }
+            int index = Arrays.binarySearch(lateIds, 0, lateCount, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            System.arraycopy(lateIds, index, lateIds, index + 1, lateCount - index);
+            System.arraycopy(lateFrequencies, index, lateFrequencies, index + 1, lateCount - index);
+            lateIds[index] = id;
+            lateFrequencies[index] = frequency;
+            lateCount++;
+            documents++;
+        }
+
+        private void compact() {
+            PostingList merged = merged();
+            data = merged.data;
+            length = merged.length;
+            lastId = merged.lastId;
+            lateCount = 0;
+        }
+
+        private PostingList merged() {
+            PostingList merged = new PostingList();
+            merged.data = new byte[length + lateCount * 15];
+            forEach(merged::add);
+            return merged;
+        }
+
+        private void append(final long gap, final int frequency) {
+            if (length + 15 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 15));
+            }
+            length = writeVarint(data, length, gap);
+            length = writeVarint(data, length, frequency);
+        }
+
+        private static int writeVarint(final byte[] target, final int offset, final long value) {
+            int position = offset;
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                target[position++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            target[position++] = (byte) remaining;
+            return position;
+        }
+
+        void writeTo(final DataOutputStream out) throws IOException {
+            PostingList encoded = lateCount == 0 ? this : merged();
+            out.writeInt(encoded.documents);
+            out.writeLong(encoded.lastId);
+            out.writeInt(encoded.length);
+            out.write(encoded.data, 0, encoded.length);
+        }
+
+        static PostingList readFrom(final DataInputStream in) throws IOException {
+            PostingList posting = new PostingList();
+            posting.documents = in.readInt();
+            posting.lastId = in.readLong();
+            posting.length = in.readInt();
+            posting.data = new byte[Math.max(8, posting.length)];
+            in.readFully(posting.data, 0, posting.length);
+            return posting;
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(long id, int frequency);
+    }
+}
@@ -1,22 +1,142 @@
 package io.github.wkktoria.shareall.post;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import io.github.wkktoria.shareall.user.User;
+import io.github.wkktoria.shareall.error.BadRequestException;
+import io.github.wkktoria.shareall.file.Attachment;
+import io.github.wkktoria.shareall.file.AttachmentRepository;
+import io.github.wkktoria.shareall.file.viewmodel.AttachmentViewModel;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import io.github.wkktoria.shareall.shared.CursorPage;
+import io.github.wkktoria.shareall.shared.Cursors;
+import io.github.wkktoria.shareall.user.AuthUser;
+import io.github.wkktoria.shareall.user.UserProjection;
+import io.github.wkktoria.shareall.user.UserRepository;
+import io.github.wkktoria.shareall.user.UserService;
 
 @Service
 public class PostService {
     private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final HotFeed hotFeed;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PostWriteBehind writeBehind;
+    private final PostSearchIndex postSearchIndex;
+    private final AttachmentRepository attachmentRepository;
 
-    public PostService(final PostRepository postRepository) {
+    public PostService(final PostRepository postRepository, final UserRepository userRepository,
+                       final UserService userService, final HotFeed hotFeed,
+                       final ApplicationEventPublisher eventPublisher,
+                       final ObjectProvider<PostWriteBehind> writeBehind,
+                       final PostSearchIndex postSearchIndex,
+                       final AttachmentRepository attachmentRepository) {
         this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.hotFeed = hotFeed;
+        this.eventPublisher = eventPublisher;
+        this.writeBehind = writeBehind.getIfAvailable();
+        this.postSearchIndex = postSearchIndex;
+        this.attachmentRepository = attachmentRepository;
     }
 
-    public void save(User user, Post post) {
+    @Transactional
+    public void save(final AuthUser author, final Post post) {
+        // Attachments are checked and linked inside this transaction, so those posts always take the direct path.
+        if (writeBehind != null && post.getAttachment() == null) {
+            writeBehind.submit(userRepository.findProjectedById(author.getId()), post);
+            return;
+        }
+
         post.setTimestamp(new Date());
-        post.setUser(user);
-        postRepository.save(post);
+        post.setUser(userRepository.getReferenceById(author.getId()));
+        post.setAttachment(resolveAttachment(author, post.getAttachment()));
+        Post saved = postRepository.save(post);
+
+        UserProjection user = userRepository.findProjectedById(author.getId());
+        PostViewModel view = new PostViewModel(saved.getId(), saved.getContent(), saved.getTimestamp(),
+                user.getId(), user.getUsername(), user.getDisplayName(), user.getImage());
+        if (saved.getAttachment() != null) {
+            view.setAttachment(new AttachmentViewModel(saved.getAttachment()));
+        }
+        eventPublisher.publishEvent(new PostCreatedEvent(view));
+    }
+
+    private Attachment resolveAttachment(final AuthUser author, final Attachment requested) {
+        if (requested == null) {
+            return null;
+        }
+
+        Attachment attachment = attachmentRepository.findById(requested.getId())
+                .filter(found -> found.getOwner().getId() == author.getId())
+                .orElseThrow(() -> new BadRequestException("Attachment " + requested.getId() + " not found"));
+        if (postRepository.existsByAttachment(attachment)) {
+            throw new BadRequestException("Attachment " + requested.getId() + " is already used");
+        }
+        return attachment;
+    }
+
+    public CursorPage<PostViewModel> getPosts(final String before, final String after, final int size) {
+        checkSingleCursor(before, after);
+        Limit limit = Limit.of(size + 1);
+        if (after != null) {
+            long afterId = Cursors.decode(after);
+            return hotFeed.after(afterId, size).orElseGet(() ->
+                    CursorPage.newerThan(postRepository.findFeedAfter(afterId, limit), size, after,
+                            PostViewModel::getId));
+        }
+
+        Long beforeId = before == null ? null : Cursors.decode(before);
+        return hotFeed.before(beforeId, size).orElseGet(() ->
+                CursorPage.of(postRepository.findFeedBefore(before == null ? Long.MAX_VALUE : beforeId, limit), size,
+                        before, PostViewModel::getId));
+    }
+
+    public CursorPage<PostViewModel> getPostsOfUser(final String username, final String before, final String after,
+                                                    final int size) {
+        checkSingleCursor(before, after);
+        long userId = userService.getIdByUsername(username);
+        Limit limit = Limit.of(size + 1);
+        if (after != null) {
+            List<PostViewModel> rows = postRepository.findUserFeedAfter(userId, Cursors.decode(after), limit);
+            return CursorPage.newerThan(rows, size, after, PostViewModel::getId);
+        }
+
+        long beforeId = before == null ? Long.MAX_VALUE : Cursors.decode(before);
+        return CursorPage.of(postRepository.findUserFeedBefore(userId, beforeId, limit), size, before,
+                PostViewModel::getId);
+    }
+
+    public Page<PostViewModel> search(final String query, final Pageable pageable) {
+        Page<Long> ids = postSearchIndex.search(query, pageable);
+        if (ids.isEmpty()) {
+            return ids.map(id -> null);
+        }
+
+        Map<Long, PostViewModel> views = postRepository.findViewsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(PostViewModel::getId, Function.identity()));
+        List<PostViewModel> ranked = ids.stream().map(views::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(ranked, pageable, ids.getTotalElements());
+    }
+
+    private static void checkSingleCursor(final String before, final String after) {
+        if (before != null && after != null) {
+            throw new BadRequestException("Use either before or after, not both");
+        }
     }
 }
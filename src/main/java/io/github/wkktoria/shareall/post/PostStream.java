@@ -0,0 +1,183 @@
+package io.github.wkktoria.shareall.post;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans new posts out to SSE subscribers. Connections are held by async servlet requests, and delivery runs on
+// virtual threads, so an idle subscriber costs a queue and an emitter but no thread.
+@Component
+class PostStream implements DisposableBean {
+    private final int historySize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openSlots = new AtomicInteger();
+    private final Deque<PostViewModel> history = new ArrayDeque<>();
+    private final ExecutorService delivery = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter dropped;
+
+    PostStream(final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        AppConfig.Feed feed = appConfig.getFeed();
+        this.historySize = feed.getStreamHistorySize();
+        this.bufferSize = feed.getStreamBufferSize();
+        this.maxSubscribers = feed.getMaxStreamSubscribers();
+        this.timeoutMillis = feed.getStreamTimeout().toMillis();
+        this.dropped = Counter.builder("shareall.posts.stream.dropped").register(meterRegistry);
+
+        Gauge.builder("shareall.posts.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+    }
+
+    SseEmitter subscribe(final Long lastEventId) {
+        // The slot is taken before the subscriber exists, so concurrent subscribes cannot overshoot the limit.
+        if (openSlots.incrementAndGet() > maxSubscribers) {
+            openSlots.decrementAndGet();
+            throw new PostStreamRejectedException("Too many open post streams");
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        // Sent before MVC takes the emitter, so it goes out with the headers and the client knows the stream is open.
+        try {
+            subscriber.emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            openSlots.decrementAndGet();
+            throw new UncheckedIOException(e);
+        }
+
+        // Replay and registration happen under the publish lock, so no post is missed or sent twice in between.
+        synchronized (history) {
+            if (lastEventId != null) {
+                history.stream()
+                        .filter(post -> post.getId() > lastEventId)
+                        .forEach(subscriber::offer);
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onPostCreated(final PostCreatedEvent event) {
+        PostViewModel post = event.getPost();
+        synchronized (history) {
+            history.addLast(post);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.offer(post));
+        }
+    }
+
+    // Idle connections carry no traffic, so a comment is sent now and then to find the ones that are gone.
+    @Scheduled(fixedDelayString = "#{@appConfig.feed.streamHeartbeatInterval.toMillis()}")
+    void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        List.copyOf(subscribers).forEach(subscriber -> subscriber.emitter.complete());
+        delivery.shutdownNow();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<PostViewModel> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // A subscriber that falls a whole buffer behind is cut off; it can reconnect with Last-Event-ID.
+        void offer(final PostViewModel post) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(post)) {
+                dropped.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            scheduleDrain();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                openSlots.decrementAndGet();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                PostViewModel post;
+                while (!closed.get() && (post = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(post.getId()))
+                            .name("post")
+                            .data(post, MediaType.APPLICATION_JSON));
+                }
+                if (!closed.get() && heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The container reports a failed write itself and MVC completes the request from there; completing
+                // it from this thread as well races that and can fail the request's async dispatch.
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!buffer.isEmpty() || heartbeatDue) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.wkktoria.shareall.post;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PostStreamRejectedException extends RuntimeException {
+    public PostStreamRejectedException(final String message) {
+        super(message);
+    }
+}
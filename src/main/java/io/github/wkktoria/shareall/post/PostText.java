@@ -0,0 +1,7 @@
+package io.github.wkktoria.shareall.post;
+
+interface PostText {
+    long getId();
+
+    String getContent();
+}
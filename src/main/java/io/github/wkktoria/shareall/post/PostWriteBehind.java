@@ -0,0 +1,411 @@
+package io.github.wkktoria.shareall.post;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import io.github.wkktoria.shareall.user.PostCounters;
+import io.github.wkktoria.shareall.user.UserProjection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "shareall.post-write-behind", name = "enabled", havingValue = "true")
+class PostWriteBehind implements SmartInitializingSingleton, DisposableBean {
+    private static final String INSERT_POST = "insert into post (id, content, timestamp, user_id) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final PostCounters postCounters;
+    private final AppConfig.PostWriteBehind config;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore capacity;
+    private final Path logPath;
+    private final long segmentSize;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter rejected;
+    private final Object logLock = new Object();
+
+    // Oldest first; the last one is being appended to. Posts are flushed in the order they were logged, so
+    // segments empty out from the front.
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegment;
+    private Thread flusher;
+    private volatile boolean running;
+
+    PostWriteBehind(final JdbcTemplate jdbcTemplate,
+                    final TransactionTemplate transactionTemplate,
+                    final EntityManager entityManager,
+                    final ApplicationEventPublisher eventPublisher,
+                    final ObjectMapper objectMapper,
+                    final PostCounters postCounters,
+                    final AppConfig appConfig,
+                    final MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.postCounters = postCounters;
+        this.config = appConfig.getPostWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.capacity = new Semaphore(config.getQueueCapacity());
+        this.logPath = Path.of(config.getLogPath()).toAbsolutePath();
+        this.segmentSize = config.getSegmentSize().toBytes();
+        this.written = Counter.builder("shareall.posts.write-behind.written").register(meterRegistry);
+        this.dropped = Counter.builder("shareall.posts.write-behind.dropped").register(meterRegistry);
+        this.rejected = Counter.builder("shareall.posts.write-behind.rejected").register(meterRegistry);
+
+        Gauge.builder("shareall.posts.write-behind.queued", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    // Runs once the schema exists but before the web server starts, so nothing can be submitted mid-replay.
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            Files.createDirectories(logPath.getParent());
+            List<Path> leftover = segmentFiles();
+            recover(leftover);
+            for (Path file : leftover) {
+                Files.delete(file);
+            }
+            nextSegment = leftover.isEmpty() ? 1 : sequenceOf(leftover.getLast()) + 1;
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open post write-behind log " + logPath, e);
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "post-write-behind");
+        // A flusher stuck on an unreachable database must not keep the JVM alive; the log covers what it held.
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Must run inside the caller's transaction: the id comes from the same generator Hibernate would use.
+    long submit(final UserProjection author, final Post post) {
+        if (!running) {
+            throw new PostWriteRejectedException("Post writes are shutting down");
+        }
+        try {
+            if (!capacity.tryAcquire(config.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new PostWriteRejectedException("Post write queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PostWriteRejectedException("Interrupted while waiting for the post write queue");
+        }
+
+        try {
+            long id = nextId(post);
+            Date timestamp = new Date();
+            PostViewModel view = new PostViewModel(id, post.getContent(), timestamp, author.getId(),
+                    author.getUsername(), author.getDisplayName(), author.getImage());
+            LogEntry entry = new LogEntry(id, author.getId(), timestamp.getTime(), post.getContent());
+
+            synchronized (logLock) {
+                queue.add(new Pending(entry, view, append(entry)));
+            }
+            return id;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(config.getDrainTimeout().toMillis());
+        }
+        synchronized (logLock) {
+            if (!segments.isEmpty()) {
+                segments.getLast().channel.close();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    collect(batch);
+                }
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Anything, not just DataAccessException (an unreachable database surfaces as a transaction
+                // exception): the batch stays in hand and is retried, and the log still holds it if we never get there.
+                log.warn("Could not write {} queued posts, retrying", batch.size(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    // Waits for the first post, then keeps filling until the batch is full or the flush interval has passed.
+    private void collect(final List<Pending> batch) throws InterruptedException {
+        long interval = config.getFlushInterval().toNanos();
+        Pending first = queue.poll(interval, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + interval;
+        while (batch.size() < config.getBatchSize() && running) {
+            queue.drainTo(batch, config.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= config.getBatchSize() || remaining <= 0) {
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        queue.drainTo(batch, config.getBatchSize() - batch.size());
+    }
+
+    private void write(final List<Pending> batch) {
+        List<Pending> stored = insert(batch);
+
+        capacity.release(batch.size());
+        markFlushed(batch);
+        written.increment(stored.size());
+
+        for (Pending pending : stored) {
+            if (pending.view() != null) {
+                publish(pending.view());
+            }
+        }
+    }
+
+    // The batch is already stored and released, so a failing listener must not send it round for a retry.
+    private void publish(final PostViewModel view) {
+        try {
+            eventPublisher.publishEvent(new PostCreatedEvent(view));
+        } catch (RuntimeException e) {
+            log.warn("A listener failed for written post {}", view.getId(), e);
+        }
+    }
+
+    // One JDBC batch in one transaction; if that fails on a constraint we fall back to row by row so a
+    // single bad post (or one already written before a crash) cannot block the rest.
+    private List<Pending> insert(final List<Pending> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_POST, batch, batch.size(), (statement, pending) -> {
+                        LogEntry entry = pending.entry();
+                        statement.setLong(1, entry.id());
+                        statement.setString(2, entry.content());
+                        statement.setTimestamp(3, new Timestamp(entry.timestamp()));
+                        statement.setLong(4, entry.userId());
+                    }));
+            return batch;
+        } catch (DataIntegrityViolationException e) {
+            List<Pending> stored = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                LogEntry entry = pending.entry();
+                try {
+                    jdbcTemplate.update(INSERT_POST, entry.id(), entry.content(), new Timestamp(entry.timestamp()),
+                            entry.userId());
+                    stored.add(pending);
+                } catch (DuplicateKeyException duplicate) {
+                    log.debug("Post {} was already written", entry.id());
+                } catch (DataIntegrityViolationException violation) {
+                    dropped.increment();
+                    log.warn("Dropping queued post {}", entry.id(), violation);
+                }
+            }
+            return stored;
+        }
+    }
+
+    void recover(final List<Path> files) throws IOException {
+        List<Pending> replay = new ArrayList<>();
+        for (Path file : files) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    replay.add(new Pending(objectMapper.readValue(line, LogEntry.class), null, null));
+                } catch (JsonProcessingException e) {
+                    // Only the last line of a segment can be torn, and its post was never acknowledged.
+                    log.warn("Skipping unreadable post write-behind log entry in {}", file);
+                }
+            }
+        }
+
+        for (int from = 0; from < replay.size(); from += config.getBatchSize()) {
+            List<Pending> batch = replay.subList(from, Math.min(from + config.getBatchSize(), replay.size()));
+            List<Pending> stored = insert(batch);
+            written.increment(stored.size());
+            // Recovered posts publish no event, so they are counted here instead.
+            stored.forEach(pending -> postCounters.record(pending.entry().userId(), pending.entry().timestamp()));
+        }
+        if (!replay.isEmpty()) {
+            log.info("Recovered {} posts from {} segments of {}", replay.size(), files.size(), logPath);
+        }
+    }
+
+    // Segments are numbered after the log path, as in post-write-behind.log.7, and read back in that order.
+    private List<Path> segmentFiles() throws IOException {
+        String prefix = logPath.getFileName() + ".";
+        try (Stream<Path> files = Files.list(logPath.getParent())) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.substring(prefix.length()).matches("[0-9]+");
+                    })
+                    .sorted(Comparator.comparingLong(this::sequenceOf))
+                    .toList();
+        }
+    }
+
+    private long sequenceOf(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(logPath.getFileName().toString().length() + 1));
+    }
+
+    private void openSegment() throws IOException {
+        Path path = logPath.resolveSibling(logPath.getFileName() + "." + nextSegment++);
+        segments.addLast(new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)));
+    }
+
+    private Segment append(final LogEntry entry) {
+        try {
+            Segment segment = segments.getLast();
+            if (segment.channel.position() >= segmentSize) {
+                segment.channel.close();
+                openSegment();
+                segment = segments.getLast();
+            }
+
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer);
+            }
+            segment.channel.force(false);
+            segment.unflushed++;
+            return segment;
+        } catch (IOException e) {
+            throw new PostWriteRejectedException("Could not record post in the write-behind log");
+        }
+    }
+
+    // Segments behind the one being written are deleted as soon as all their posts are in the database, so the
+    // log stays bounded under sustained load; the current one is cut back whenever it empties out. Replaying a
+    // flushed post is harmless, so a failed delete only costs a little work on recovery.
+    private void markFlushed(final List<Pending> batch) {
+        synchronized (logLock) {
+            batch.forEach(pending -> pending.segment().unflushed--);
+
+            while (segments.size() > 1 && segments.getFirst().unflushed == 0) {
+                Segment flushed = segments.removeFirst();
+                try {
+                    Files.deleteIfExists(flushed.path);
+                } catch (IOException e) {
+                    log.warn("Could not delete post write-behind log segment {}", flushed.path, e);
+                }
+            }
+
+            Segment current = segments.getLast();
+            if (current.unflushed == 0 && current.channel.isOpen()) {
+                try {
+                    current.channel.truncate(0);
+                    current.channel.position(0);
+                } catch (IOException e) {
+                    log.warn("Could not truncate post write-behind log segment {}", current.path, e);
+                }
+            }
+        }
+    }
+
+    private long nextId(final Post post) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(Post.class)
+                .getGenerator();
+        return ((Number) generator.generate(session, post, null, EventType.INSERT)).longValue();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(config.getFlushInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record LogEntry(long id, long userId, long timestamp, String content) {
+    }
+
+    private record Pending(LogEntry entry, PostViewModel view, Segment segment) {
+    }
+
+    // Only touched under logLock.
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private long unflushed;
+
+        private Segment(final Path path, final FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
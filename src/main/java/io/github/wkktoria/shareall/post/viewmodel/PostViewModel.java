@@ -0,0 +1,44 @@
+package io.github.wkktoria.shareall.post.viewmodel;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.github.wkktoria.shareall.file.viewmodel.AttachmentViewModel;
+import io.github.wkktoria.shareall.user.viewmodel.UserViewModel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+public class PostViewModel {
+    private long id;
+    private String content;
+    private long date;
+    private UserViewModel user;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private AttachmentViewModel attachment;
+
+    public PostViewModel(final long id, final String content, final Date timestamp, final long userId,
+                         final String username, final String displayName, final String image) {
+        this.setId(id);
+        this.setContent(content);
+        this.setDate(timestamp.getTime());
+
+        UserViewModel author = new UserViewModel();
+        author.setId(userId);
+        author.setUsername(username);
+        author.setDisplayName(displayName);
+        author.setImage(image);
+        this.setUser(author);
+    }
+
+    public PostViewModel(final long id, final String content, final Date timestamp, final long userId,
+                         final String username, final String displayName, final String image,
+                         final Long attachmentId, final String attachmentName, final String attachmentType,
+                         final Long attachmentSize) {
+        this(id, content, timestamp, userId, username, displayName, image);
+        if (attachmentId != null) {
+            this.setAttachment(new AttachmentViewModel(attachmentId, attachmentName, attachmentType, attachmentSize));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.wkktoria.shareall.shared;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class BatchLoader<K, V> {
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final Map<K, CompletableFuture<V>> cache = new LinkedHashMap<>();
+    private final Set<K> pending = new LinkedHashSet<>();
+
+    public BatchLoader(final Function<Set<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    public synchronized CompletableFuture<V> load(final K key) {
+        return cache.computeIfAbsent(key, k -> {
+            pending.add(k);
+            return new CompletableFuture<>();
+        });
+    }
+
+    public List<V> loadMany(final Collection<K> keys) {
+        List<CompletableFuture<V>> futures = new LinkedHashSet<>(keys).stream().map(this::load).toList();
+        dispatch();
+        return futures.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+    }
+
+    public void prime(final K key, final V value) {
+        synchronized (this) {
+            if (cache.containsKey(key)) {
+                return;
+            }
+            cache.put(key, CompletableFuture.completedFuture(value));
+        }
+    }
+
+    public void dispatch() {
+        Set<K> keys;
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            keys = new LinkedHashSet<>(pending);
+            pending.clear();
+            keys.forEach(key -> futures.put(key, cache.get(key)));
+        }
+
+        try {
+            Map<K, V> values = batchFunction.apply(keys);
+            futures.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                keys.forEach(cache::remove);
+            }
+            futures.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.wkktoria.shareall.shared;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class CursorPage<T> {
+    private final List<T> content;
+
+    private final int size;
+
+    private final boolean first;
+
+    private final String nextCursor;
+
+    // Points at the first item, the newest post on a feed page, or echoes the request's cursor when the page is
+    // empty, so a client polling with after= always has somewhere to continue from.
+    private final String prevCursor;
+
+    public static <T> CursorPage<T> of(final List<T> rows, final int size, final String cursor,
+                                       final ToLongFunction<T> idExtractor) {
+        List<T> content = rows.size() <= size ? rows : rows.subList(0, size);
+        String nextCursor = rows.size() <= size ? null : Cursors.encode(idExtractor.applyAsLong(content.getLast()));
+        String prevCursor = content.isEmpty() ? cursor : Cursors.encode(idExtractor.applyAsLong(content.getFirst()));
+        return new CursorPage<>(content, size, cursor == null, nextCursor, prevCursor);
+    }
+
+    // Rows come oldest first from the cursor on; the page holds the oldest of them, shown newest first.
+    public static <T> CursorPage<T> newerThan(final List<T> rows, final int size, final String cursor,
+                                              final ToLongFunction<T> idExtractor) {
+        CursorPage<T> page = of(rows, size, cursor, idExtractor);
+        String prevCursor = page.content.isEmpty()
+                ? cursor
+                : Cursors.encode(idExtractor.applyAsLong(page.content.getLast()));
+        return new CursorPage<>(page.content.reversed(), size, false, page.nextCursor, prevCursor);
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <U> CursorPage<U> map(final Function<? super T, ? extends U> converter) {
+        return new CursorPage<>(content.stream().<U>map(converter).toList(), size, first, nextCursor,
+                prevCursor);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.wkktoria.shareall.shared;
+
+import io.github.wkktoria.shareall.error.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+public final class Cursors {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Cursors() {
+    }
+
+    public static String encode(final long id) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    public static long decode(final String cursor) {
+        try {
+            byte[] bytes = DECODER.decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidCursorException(cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.wkktoria.shareall.shared;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+public final class ETags {
+    private ETags() {
+    }
+
+    // The counter is maintained outside the entity's own version, so it is tagged beside the version, not folded in.
+    public static String strong(final long id, final long version, final long counter) {
+        return "\"" + id + "-" + version + "-" + counter + "\"";
+    }
+
+    // Weak because equal tags only promise the same members, not byte-identical JSON.
+    public static <T> String weak(final String state, final List<T> members, final ToLongFunction<T> id,
+                                  final ToLongFunction<T> version, final ToLongFunction<T> counter) {
+        StringBuilder fingerprint = new StringBuilder(state);
+        for (T member : members) {
+            fingerprint.append('|').append(id.applyAsLong(member)).append(':').append(version.applyAsLong(member))
+                    .append(':').append(counter.applyAsLong(member));
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.wkktoria.shareall.shared;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.function.Function;
+
+@Getter
+public class EstimatedSlice<T> extends SliceImpl<T> {
+    private final long approximateTotalElements;
+
+    public EstimatedSlice(final Slice<T> slice, final long approximateTotalElements) {
+        super(slice.getContent(), slice.getPageable(), slice.hasNext());
+        this.approximateTotalElements = approximateTotalElements;
+    }
+
+    @Override
+    public <U> EstimatedSlice<U> map(final Function<? super T, ? extends U> converter) {
+        return new EstimatedSlice<>(super.map(converter), approximateTotalElements);
+    }
+}
@@ -3,6 +3,7 @@ package io.github.wkktoria.shareall.shared;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -11,8 +12,10 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import io.github.wkktoria.shareall.config.PasswordHashingRejectedException;
 import io.github.wkktoria.shareall.error.ApiError;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestControllerAdvice
 class ExceptionHandlerAdvice {
@@ -32,4 +35,13 @@ class ExceptionHandlerAdvice {
 
 		return apiError;
 	}
+
+	// Hashing inside a controller (signup, profile edits) never reaches PasswordHashingRejectionFilter.
+	@ExceptionHandler(PasswordHashingRejectedException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	ApiError handlePasswordHashingRejected(PasswordHashingRejectedException exception, HttpServletRequest request,
+			HttpServletResponse response) {
+		response.setHeader(HttpHeaders.RETRY_AFTER, PasswordHashingRejectedException.RETRY_AFTER_SECONDS);
+		return new ApiError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage(), request.getServletPath());
+	}
 }
@@ -0,0 +1,37 @@
+package io.github.wkktoria.shareall.shared;
+
+import io.github.wkktoria.shareall.shared.annotation.TimeOrderedId;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+// Assigns ids in memory, so inserts need no sequence round trip and write-behind can number posts up front.
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+    public static final String NODE_ID_SETTING = "shareall.ids.node-id";
+
+    private final TimeOrderedIds ids;
+
+    public TimeOrderedIdGenerator(final TimeOrderedId annotation, final Member member,
+                                  final CustomIdGeneratorCreationContext context) {
+        Object nodeId = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(NODE_ID_SETTING);
+        this.ids = new TimeOrderedIds(nodeId == null ? 0 : Integer.parseInt(nodeId.toString()));
+    }
+
+    @Override
+    public Object generate(final SharedSessionContractImplementor session, final Object owner,
+                           final Object currentValue, final EventType eventType) {
+        return ids.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
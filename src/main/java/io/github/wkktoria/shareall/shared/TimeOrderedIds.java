@@ -0,0 +1,47 @@
+package io.github.wkktoria.shareall.shared;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Ids are 41 bits of milliseconds since EPOCH, 5 bits of node id and a 7-bit sequence within the millisecond.
+// 53 bits keep every id exact as a JavaScript number and last until 2093.
+public final class TimeOrderedIds {
+    public static final int MAX_NODE_ID = 31;
+
+    static final long EPOCH = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 7;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    // The last issued (millisecond << SEQUENCE_BITS | sequence); a single CAS claims the next one.
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIds(final int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TimeOrderedIds(final int nodeId, final LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    public long next() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        // A stalled or rewound clock, or an exhausted sequence, borrows the next millisecond instead of waiting.
+        long slot = last.updateAndGet(previous -> Math.max(previous + 1, now));
+        return (slot >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | slot & SEQUENCE_MASK;
+    }
+
+    public static long timestampOf(final long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    public static int nodeOf(final long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
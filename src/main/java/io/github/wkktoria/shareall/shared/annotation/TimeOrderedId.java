@@ -0,0 +1,15 @@
+package io.github.wkktoria.shareall.shared.annotation;
+
+import io.github.wkktoria.shareall.shared.TimeOrderedIdGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+public @interface TimeOrderedId {
+}
@@ -5,7 +5,7 @@ import io.github.wkktoria.shareall.shared.annotation.ProfileImage;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.util.Base64;
+import java.io.IOException;
 
 public class ProfileImageValidator implements ConstraintValidator<ProfileImage, String> {
     private final FileService fileService;
@@ -14,15 +14,21 @@ public class ProfileImageValidator implements ConstraintValidator<ProfileImage,
         this.fileService = fileService;
     }
 
+    public static boolean isSupported(final String fileType) {
+        return fileType.equalsIgnoreCase("image/png") || fileType.equalsIgnoreCase("image/jpeg");
+    }
+
     @Override
     public boolean isValid(final String value, final ConstraintValidatorContext context) {
         if (value == null) {
             return true;
         }
 
-        byte[] decodedBytes = Base64.getDecoder().decode(value);
-        String fileType = fileService.detectType(decodedBytes);
-
-        return fileType.equalsIgnoreCase("image/png") || fileType.equalsIgnoreCase("image/jpeg");
+        try {
+            return isSupported(fileService.detectProfileImageType(value));
+        } catch (IOException e) {
+            // Not valid Base64.
+            return false;
+        }
     }
 }
@@ -0,0 +1,28 @@
+package io.github.wkktoria.shareall.user;
+
+import lombok.ToString;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+@Value
+public class AuthUser implements UserDetails {
+    Long id;
+
+    String username;
+
+    @ToString.Exclude
+    String password;
+
+    String displayName;
+
+    String image;
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.post.PostCreatedEvent;
+import io.github.wkktoria.shareall.post.viewmodel.PostViewModel;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps users.post_count and users.last_post_at current without touching the user row on every post. The optimistic
+// lock version is left alone, so a flush never fails an entity write of the same user; ETags tag the count separately.
+@Component
+public class PostCounters implements InitializingBean, DisposableBean {
+    private static final String APPLY_DELTA = "update users set post_count = post_count + ?, "
+            + "last_post_at = case when last_post_at is null or last_post_at < ? then ? else last_post_at end "
+            + "where id = ?";
+    private static final String RECONCILE = "update users u set "
+            + "post_count = (select count(*) from post p where p.user_id = u.id), "
+            + "last_post_at = (select max(p.timestamp) from post p where p.user_id = u.id) "
+            + "where u.post_count <> (select count(*) from post p where p.user_id = u.id)";
+
+    private final UserRepository userRepository;
+    private final UserSearchIndex userSearchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean reconcileOnStartup;
+
+    // Each delta is only read or changed inside the map's per-key compute, so the map's bin locks are the stripes.
+    private final ConcurrentHashMap<Long, Delta> deltas = new ConcurrentHashMap<>();
+
+    PostCounters(final UserRepository userRepository,
+                 final UserSearchIndex userSearchIndex,
+                 final JdbcTemplate jdbcTemplate,
+                 final TransactionTemplate transactionTemplate,
+                 final AppConfig appConfig) {
+        this.userRepository = userRepository;
+        this.userSearchIndex = userSearchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reconcileOnStartup = appConfig.getPostCounters().isReconcileOnStartup();
+    }
+
+    // Runs while the context is still being built, so no post can be counted both here and as a delta.
+    @Override
+    public void afterPropertiesSet() {
+        if (reconcileOnStartup) {
+            jdbcTemplate.update(RECONCILE);
+        }
+    }
+
+    public void record(final long userId, final long timestamp) {
+        deltas.compute(userId, (id, delta) -> (delta == null ? new Delta() : delta).add(1, timestamp));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onPostCreated(final PostCreatedEvent event) {
+        PostViewModel post = event.getPost();
+        record(post.getUser().getId(), post.getDate());
+    }
+
+    @Scheduled(fixedDelayString = "#{@appConfig.postCounters.flushInterval.toMillis()}")
+    public synchronized void flush() {
+        List<Map.Entry<Long, Delta>> drained = new ArrayList<>();
+        for (Long userId : deltas.keySet()) {
+            deltas.computeIfPresent(userId, (id, delta) -> {
+                drained.add(Map.entry(id, delta));
+                return null;
+            });
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(APPLY_DELTA, drained, drained.size(), (statement, entry) -> {
+                        Timestamp lastPostAt = new Timestamp(entry.getValue().lastPostAt);
+                        statement.setLong(1, entry.getValue().count);
+                        statement.setTimestamp(2, lastPostAt);
+                        statement.setTimestamp(3, lastPostAt);
+                        statement.setLong(4, entry.getKey());
+                    }));
+        } catch (DataAccessException e) {
+            drained.forEach(entry -> deltas.merge(entry.getKey(), entry.getValue(),
+                    (current, failed) -> current.add(failed.count, failed.lastPostAt)));
+            throw e;
+        }
+
+        userRepository.findProjectedByIdIn(drained.stream().map(Map.Entry::getKey).toList())
+                .forEach(userSearchIndex::index);
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private static final class Delta {
+        private long count;
+        private long lastPostAt;
+
+        Delta add(final long posts, final long timestamp) {
+            count += posts;
+            lastPostAt = Math.max(lastPostAt, timestamp);
+            return this;
+        }
+    }
+}
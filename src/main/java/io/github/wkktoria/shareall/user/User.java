@@ -1,20 +1,22 @@
 package io.github.wkktoria.shareall.user;
 
-import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
-
 import io.github.wkktoria.shareall.post.Post;
+import io.github.wkktoria.shareall.shared.annotation.TimeOrderedId;
 import io.github.wkktoria.shareall.user.annotation.UniqueUsername;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
-import jakarta.persistence.Transient;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -24,18 +26,20 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "users")
+@EntityListeners(UsernameFilterListener.class)
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_username", columnNames = "username"))
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
 @EqualsAndHashCode
-public class User implements UserDetails {
+public class User {
     @Id
-    @GeneratedValue
+    @TimeOrderedId
     private Long id;
 
     @NotNull(message = "{shareall.constraints.username.NotNull.message}")
@@ -54,37 +58,24 @@ public class User implements UserDetails {
     private String password;
 
     private String image;
-    
-    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
-    private List<Post> posts;
 
-    @Override
-    @Transient
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
-    }
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 
-    @Override
-    @Transient
-    public boolean isAccountNonExpired() {
-        return true;
-    }
+    // Maintained by PostCounters, never by this entity's own updates.
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long postCount;
 
-    @Override
-    @Transient
-    public boolean isAccountNonLocked() {
-        return true;
-    }
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(updatable = false)
+    private Date lastPostAt;
 
-    @Override
-    @Transient
-    public boolean isCredentialsNonExpired() {
-        return true;
-    }
-
-    @Override
-    @Transient
-    public boolean isEnabled() {
-        return true;
-    }
+    // Lazy so user lookups never drag posts along; read a user's posts through PostRepository.
+    @OneToMany(mappedBy = "user", fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<Post> posts;
 }
@@ -1,7 +1,13 @@
 package io.github.wkktoria.shareall.user;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,8 +15,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import io.github.wkktoria.shareall.error.BadRequestException;
+import io.github.wkktoria.shareall.shared.CursorPage;
+import io.github.wkktoria.shareall.shared.ETags;
+import io.github.wkktoria.shareall.shared.EstimatedSlice;
 import io.github.wkktoria.shareall.shared.GenericResponse;
 import io.github.wkktoria.shareall.shared.annotation.CurrentUser;
 import io.github.wkktoria.shareall.user.viewmodel.UserUpdateViewModel;
@@ -20,10 +33,14 @@ import jakarta.validation.Valid;
 @RestController
 @RequestMapping("/api/1.0")
 class UserController {
+	private static final int MAX_BATCH_SIZE = 100;
+
 	private final UserService userService;
+	private final UserLoader userLoader;
 
-	UserController(final UserService userService) {
+	UserController(final UserService userService, final UserLoader userLoader) {
 		this.userService = userService;
+		this.userLoader = userLoader;
 	}
 
 	@PostMapping("/users")
@@ -33,16 +50,80 @@ class UserController {
 	}
 
 	@GetMapping("/users")
-	Page<UserViewModel> getUsers(@CurrentUser User loggedInUser, final Pageable pageable) {
-		return userService.getUsers(loggedInUser, pageable).map(UserViewModel::new);
+	Page<UserViewModel> getUsers(@CurrentUser AuthUser loggedInUser, final Pageable pageable,
+			final WebRequest request) {
+		Page<UserProjection> users = userService.getUsers(loggedInUser, pageable);
+		String state = users.getTotalElements() + ":" + users.getNumber() + ":" + users.getSize();
+		if (request.checkNotModified(listingETag(state, users.getContent()))) {
+			return null;
+		}
+		return users.map(UserViewModel::new);
+	}
+
+	@GetMapping(value = "/users", params = { "count=false", "!after" })
+	EstimatedSlice<UserViewModel> getUsersSlice(@CurrentUser AuthUser loggedInUser, final Pageable pageable,
+			final WebRequest request) {
+		EstimatedSlice<UserProjection> users = userService.getUsersSlice(loggedInUser, pageable);
+		String state = users.hasNext() + ":" + users.getNumber() + ":" + users.getSize();
+		if (request.checkNotModified(listingETag(state, users.getContent()))) {
+			return null;
+		}
+		return users.map(UserViewModel::new);
+	}
+
+	@GetMapping(value = "/users", params = "after")
+	CursorPage<UserViewModel> getUsersAfter(@CurrentUser AuthUser loggedInUser, final Pageable pageable,
+			@RequestParam(defaultValue = "") final String after, final WebRequest request) {
+		CursorPage<UserProjection> users = userService.getUsersAfter(loggedInUser, after, pageable.getPageSize());
+		if (request.checkNotModified(listingETag(after + ":" + users.getNextCursor(), users.getContent()))) {
+			return null;
+		}
+		return users.map(UserViewModel::new);
+	}
+
+	@GetMapping(value = "/users", params = "usernames")
+	List<UserViewModel> getUsersByUsernames(@RequestParam final List<String> usernames) {
+		checkBatchSize(usernames);
+		return userLoader.loadManyByUsername(usernames).stream().map(UserViewModel::new).toList();
+	}
+
+	@GetMapping(value = "/users", params = "ids")
+	List<UserViewModel> getUsersByIds(@RequestParam final List<Long> ids) {
+		checkBatchSize(ids);
+		return userLoader.loadManyById(ids).stream().map(UserViewModel::new).toList();
+	}
+
+	@GetMapping("/users/search")
+	Page<UserViewModel> searchUsers(@RequestParam(defaultValue = "") final String q, final Pageable pageable) {
+		return userService.search(q, pageable).map(UserViewModel::new);
 	}
 
 	@GetMapping("/users/{username}")
-	UserViewModel getUserByUsername(@PathVariable final String username) {
-		User user = userService.getByUsername(username);
+	UserViewModel getUserByUsername(@PathVariable final String username, final WebRequest request) {
+		// A revalidation only needs the version, so the profile is loaded once the tag is known to be stale.
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+			UserVersion version = userService.getVersionByUsername(username);
+			if (request.checkNotModified(ETags.strong(version.getId(), version.getVersion(), version.getPostCount()))) {
+				return null;
+			}
+		}
+
+		UserProjection user = userService.getByUsername(username);
+		request.checkNotModified(ETags.strong(user.getId(), user.getVersion(), user.getPostCount()));
 		return new UserViewModel(user);
 	}
 
+	private static void checkBatchSize(final List<?> keys) {
+		if (keys.size() > MAX_BATCH_SIZE) {
+			throw new BadRequestException("At most " + MAX_BATCH_SIZE + " users can be requested at once");
+		}
+	}
+
+	private static String listingETag(final String state, final List<UserProjection> users) {
+		return ETags.weak(state, users, UserProjection::getId, UserProjection::getVersion,
+				UserProjection::getPostCount);
+	}
+
 	@PutMapping("/users/{id:[0-9]+}")
 	@PreAuthorize("#id == principal.id")
 	UserViewModel updateUser(@PathVariable final long id,
@@ -50,4 +131,20 @@ class UserController {
 		User updated = userService.update(id, userUpdate);
 		return new UserViewModel(updated);
 	}
+
+	@PutMapping(value = "/users/{id:[0-9]+}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	@PreAuthorize("#id == principal.id")
+	UserViewModel updateUserImage(@PathVariable final long id, @RequestParam("image") final MultipartFile image)
+			throws IOException {
+		try (InputStream content = image.getInputStream()) {
+			return new UserViewModel(userService.updateImage(id, content));
+		}
+	}
+
+	// The raw body is streamed straight to disk; the declared image type is not trusted, the bytes are sniffed.
+	@PutMapping(value = "/users/{id:[0-9]+}/image", consumes = "image/*")
+	@PreAuthorize("#id == principal.id")
+	UserViewModel updateUserImage(@PathVariable final long id, final InputStream content) throws IOException {
+		return new UserViewModel(userService.updateImage(id, content));
+	}
 }
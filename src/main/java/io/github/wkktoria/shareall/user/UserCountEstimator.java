@@ -0,0 +1,32 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+class UserCountEstimator {
+    static final long UNKNOWN = -1;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final AtomicLong approximateCount = new AtomicLong(UNKNOWN);
+
+    UserCountEstimator(final UserRepository userRepository, final AppConfig appConfig) {
+        this.userRepository = userRepository;
+        this.enabled = appConfig.getListing().isApproximateCount();
+    }
+
+    long getApproximateCount() {
+        return approximateCount.get();
+    }
+
+    @Scheduled(fixedDelayString = "#{@appConfig.listing.approximateCountRefresh.toMillis()}")
+    void refresh() {
+        if (enabled) {
+            approximateCount.set(userRepository.count());
+        }
+    }
+}
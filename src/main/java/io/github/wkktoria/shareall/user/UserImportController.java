@@ -0,0 +1,30 @@
+package io.github.wkktoria.shareall.user;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.github.wkktoria.shareall.user.viewmodel.UserImportResultViewModel;
+
+@RestController
+@RequestMapping("/api/1.0/admin")
+class UserImportController {
+	private final UserImportService userImportService;
+
+	UserImportController(final UserImportService userImportService) {
+		this.userImportService = userImportService;
+	}
+
+	@PostMapping(value = "/users/import", consumes = "application/x-ndjson")
+	UserImportResultViewModel importNdjson(final Reader body) throws IOException {
+		return userImportService.importUsers(body, UserImportService.Format.NDJSON);
+	}
+
+	@PostMapping(value = "/users/import", consumes = "text/csv")
+	UserImportResultViewModel importCsv(final Reader body) throws IOException {
+		return userImportService.importUsers(body, UserImportService.Format.CSV);
+	}
+}
@@ -0,0 +1,279 @@
+package io.github.wkktoria.shareall.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.user.viewmodel.UserImportResultViewModel;
+import io.github.wkktoria.shareall.user.viewmodel.UserImportViewModel;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+@Service
+class UserImportService {
+    enum Format {
+        NDJSON, CSV
+    }
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UserSearchIndex userSearchIndex;
+    private final UsernameFilter usernameFilter;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final AppConfig.BulkImport bulkImport;
+    private final Semaphore hashingPermits;
+
+    UserImportService(final UserRepository userRepository,
+                      final PasswordEncoder passwordEncoder,
+                      final UserSearchIndex userSearchIndex,
+                      final UsernameFilter usernameFilter,
+                      final Validator validator,
+                      final ObjectMapper objectMapper,
+                      final TransactionTemplate transactionTemplate,
+                      final EntityManager entityManager,
+                      final AppConfig appConfig) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.userSearchIndex = userSearchIndex;
+        this.usernameFilter = usernameFilter;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.bulkImport = appConfig.getBulkImport();
+        // Shared by every running import and capped at half the hashing pool, so logins always keep the rest.
+        this.hashingPermits = new Semaphore(Math.max(1, appConfig.getPassword().getHashingThreads() / 2));
+    }
+
+    UserImportResultViewModel importUsers(final Reader source, final Format format) throws IOException {
+        UserImportResultViewModel result = new UserImportResultViewModel();
+        Set<String> seenUsernames = new HashSet<>();
+        List<Row> batch = new ArrayList<>(bulkImport.getBatchSize());
+        List<String> csvHeader = null;
+
+        BufferedReader reader = new BufferedReader(source);
+        long lineNumber = 0;
+        long rows = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvHeader == null) {
+                csvHeader = splitCsv(line).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+                continue;
+            }
+            if (++rows > bulkImport.getMaxRows()) {
+                result.addError(lineNumber, null, "Import is limited to " + bulkImport.getMaxRows() + " rows");
+                break;
+            }
+
+            batch.add(format == Format.CSV ? parseCsv(lineNumber, csvHeader, line) : parseJson(lineNumber, line));
+            if (batch.size() >= bulkImport.getBatchSize()) {
+                importBatch(batch, seenUsernames, result);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            importBatch(batch, seenUsernames, result);
+        }
+        result.getErrors().sort(Comparator.comparingLong(UserImportResultViewModel.RowError::getLine));
+        return result;
+    }
+
+    private void importBatch(final List<Row> batch, final Set<String> seenUsernames,
+                             final UserImportResultViewModel result) {
+        List<Row> candidates = new ArrayList<>();
+        for (Row row : batch) {
+            String error = row.error() != null ? row.error() : validate(row.user());
+            String username = row.user() != null ? row.user().getUsername() : null;
+            if (error == null && !seenUsernames.add(username)) {
+                error = "Duplicate username in import";
+            }
+
+            if (error != null) {
+                result.addError(row.line(), username, error);
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<String> possiblyTaken = candidates.stream()
+                .map(row -> row.user().getUsername())
+                .filter(usernameFilter::mightExist)
+                .toList();
+        Set<String> existing = possiblyTaken.isEmpty()
+                ? Set.of()
+                : userRepository.findExistingUsernames(possiblyTaken);
+
+        List<Row> accepted = new ArrayList<>();
+        for (Row row : candidates) {
+            if (existing.contains(row.user().getUsername())) {
+                result.addError(row.line(), row.user().getUsername(), "This name is in use");
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        List<User> users = hashPasswords(accepted, result);
+        if (users.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (DataIntegrityViolationException e) {
+            entityManager.clear();
+            users.forEach(user -> result.addError(lineOf(accepted, user), user.getUsername(),
+                    "Batch could not be stored, retry this row"));
+            return;
+        }
+
+        users.forEach(userSearchIndex::index);
+        result.setImported(result.getImported() + users.size());
+    }
+
+    private List<User> hashPasswords(final List<Row> rows, final UserImportResultViewModel result) {
+        Map<Row, Future<String>> hashes = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Row row : rows) {
+                hashes.put(row, executor.submit(() -> {
+                    hashingPermits.acquire();
+                    try {
+                        return passwordEncoder.encode(row.user().getPassword());
+                    } finally {
+                        hashingPermits.release();
+                    }
+                }));
+            }
+        }
+
+        List<User> users = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            try {
+                User user = new User();
+                user.setUsername(row.user().getUsername());
+                user.setDisplayName(row.user().getDisplayName());
+                user.setPassword(hashes.get(row).get());
+                users.add(user);
+            } catch (ExecutionException e) {
+                result.addError(row.line(), row.user().getUsername(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.addError(row.line(), row.user().getUsername(), "Import interrupted");
+            }
+        }
+        return users;
+    }
+
+    private String validate(final UserImportViewModel user) {
+        Set<ConstraintViolation<UserImportViewModel>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Row parseJson(final long line, final String json) {
+        try {
+            return new Row(line, objectMapper.readValue(json, UserImportViewModel.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Malformed JSON");
+        }
+    }
+
+    private static Row parseCsv(final long line, final List<String> header, final String csv) {
+        List<String> values = splitCsv(csv);
+        if (values.size() != header.size()) {
+            return new Row(line, null, "Expected " + header.size() + " columns but found " + values.size());
+        }
+
+        UserImportViewModel user = new UserImportViewModel();
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i)) {
+                case "username" -> user.setUsername(values.get(i));
+                case "displayname" -> user.setDisplayName(values.get(i));
+                case "password" -> user.setPassword(values.get(i));
+                default -> {
+                }
+            }
+        }
+        return new Row(line, user, null);
+    }
+
+    private static List<String> splitCsv(final String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static long lineOf(final List<Row> rows, final User user) {
+        return rows.stream()
+                .filter(row -> row.user().getUsername().equals(user.getUsername()))
+                .mapToLong(Row::line)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private record Row(long line, UserImportViewModel user, String error) {
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.shared.BatchLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequestScope
+public class UserLoader {
+    private final UserRepository userRepository;
+    private final BatchLoader<String, UserProjection> byUsername;
+    private final BatchLoader<Long, UserProjection> byId;
+
+    UserLoader(final UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.byUsername = new BatchLoader<>(this::loadByUsernames);
+        this.byId = new BatchLoader<>(this::loadByIds);
+    }
+
+    public CompletableFuture<UserProjection> loadByUsername(final String username) {
+        return byUsername.load(username);
+    }
+
+    public CompletableFuture<UserProjection> loadById(final long id) {
+        return byId.load(id);
+    }
+
+    public List<UserProjection> loadManyByUsername(final Collection<String> usernames) {
+        return byUsername.loadMany(usernames);
+    }
+
+    public List<UserProjection> loadManyById(final Collection<Long> ids) {
+        return byId.loadMany(ids);
+    }
+
+    public void dispatch() {
+        byUsername.dispatch();
+        byId.dispatch();
+    }
+
+    private Map<String, UserProjection> loadByUsernames(final Set<String> usernames) {
+        List<UserProjection> users = userRepository.findProjectedByUsernameIn(usernames);
+        users.forEach(user -> byId.prime(user.getId(), user));
+        return users.stream().collect(Collectors.toMap(UserProjection::getUsername, Function.identity()));
+    }
+
+    private Map<Long, UserProjection> loadByIds(final Set<Long> ids) {
+        List<UserProjection> users = userRepository.findProjectedByIdIn(ids);
+        users.forEach(user -> byUsername.prime(user.getUsername(), user));
+        return users.stream().collect(Collectors.toMap(UserProjection::getId, Function.identity()));
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.wkktoria.shareall.user;
 
+import java.util.Date;
+
 public interface UserProjection {
     long getId();
 
@@ -8,4 +10,10 @@ public interface UserProjection {
     String getDisplayName();
 
     String getImage();
+
+    long getVersion();
+
+    long getPostCount();
+
+    Date getLastPostAt();
 }
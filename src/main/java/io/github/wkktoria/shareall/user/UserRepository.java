@@ -1,23 +1,67 @@
 package io.github.wkktoria.shareall.user;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByUsernameContaining(final String username);
 
+    Page<UserProjection> findProjectedByUsernameContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
+            final String username, final String displayName, final Pageable pageable);
+
     User findByUsernameAndDisplayName(final String username, final String displayName);
 
     User findByUsername(final String username);
 
-    @Query(value = "select * from users", nativeQuery = true)
-    Page<UserProjection> getAllUsersProjection(final Pageable pageable);
+    boolean existsByUsername(final String username);
+
+    @Query("select u.id as id, u.username as username from User u where u.id > :id order by u.id")
+    List<UsernameEntry> findUsernamesByIdGreaterThan(final long id, final Limit limit);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    Set<String> findExistingUsernames(final Collection<String> usernames);
+
+    @Query("select new io.github.wkktoria.shareall.user.AuthUser(u.id, u.username, u.password, u.displayName, u.image) "
+            + "from User u where u.username = :username")
+    AuthUser findAuthUserByUsername(final String username);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(final long id, final String password);
+
+    UserProjection findProjectedByUsername(final String username);
+
+    UserProjection findProjectedById(final long id);
+
+    UserVersion findVersionByUsername(final String username);
+
+    List<UserProjection> findProjectedByUsernameIn(final Collection<String> usernames);
+
+    List<UserProjection> findProjectedByIdIn(final Collection<Long> ids);
+
+    Page<UserProjection> findProjectedBy(final Pageable pageable);
+
+    Page<UserProjection> findProjectedByUsernameNot(final String username, final Pageable pageable);
+
+    Slice<UserProjection> findSlicedBy(final Pageable pageable);
+
+    Slice<UserProjection> findSlicedByUsernameNot(final String username, final Pageable pageable);
+
+    List<UserProjection> findProjectedByIdGreaterThanOrderByIdAsc(final long id, final Limit limit);
 
-    Page<User> findByUsernameNot(final String username, final Pageable pageable);
+    List<UserProjection> findProjectedByUsernameNotAndIdGreaterThanOrderByIdAsc(final String username, final long id,
+                                                                                final Limit limit);
 }
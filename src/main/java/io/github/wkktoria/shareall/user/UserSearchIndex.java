@@ -0,0 +1,301 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+class UserSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final String PREFIX_MARKER = "^";
+
+    private final UserRepository userRepository;
+    private final int maxIndexedUsers;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, IndexedUser> users = new HashMap<>();
+    private Map<String, Set<Long>> postings = new HashMap<>();
+    private boolean complete = true;
+
+    UserSearchIndex(final UserRepository userRepository, final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.maxIndexedUsers = appConfig.getSearch().getMaxIndexedUsers();
+
+        Gauge.builder("shareall.users.search-index.size", this, UserSearchIndex::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuild() {
+        Map<Long, IndexedUser> rebuiltUsers = new HashMap<>();
+        Map<String, Set<Long>> rebuiltPostings = new HashMap<>();
+        boolean rebuiltComplete = true;
+
+        long lastId = Long.MIN_VALUE;
+        List<UserProjection> batch;
+        do {
+            batch = userRepository.findProjectedByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            for (UserProjection user : batch) {
+                if (rebuiltUsers.size() >= maxIndexedUsers) {
+                    rebuiltComplete = false;
+                    break;
+                }
+                IndexedUser indexed = IndexedUser.of(user);
+                rebuiltUsers.put(indexed.getId(), indexed);
+                addPostings(rebuiltPostings, indexed);
+                lastId = user.getId();
+            }
+        } while (rebuiltComplete && batch.size() == REBUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            users = rebuiltUsers;
+            postings = rebuiltPostings;
+            complete = rebuiltComplete;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void index(final User user) {
+        index(new IndexedUser(user.getId(), user.getUsername(), user.getDisplayName(), user.getImage(),
+                user.getVersion(), user.getPostCount(), user.getLastPostAt()));
+    }
+
+    void index(final UserProjection user) {
+        index(IndexedUser.of(user));
+    }
+
+    private void index(final IndexedUser indexed) {
+        lock.writeLock().lock();
+        try {
+            IndexedUser previous = users.get(indexed.getId());
+            if (previous == null && users.size() >= maxIndexedUsers) {
+                complete = false;
+                return;
+            }
+            if (previous != null) {
+                removePostings(previous);
+            }
+            users.put(indexed.getId(), indexed);
+            addPostings(postings, indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isComplete() {
+        lock.readLock().lock();
+        try {
+            return complete;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Page<UserProjection> search(final String query, final Pageable pageable) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(normalized)) {
+                IndexedUser user = users.get(id);
+                int rank = rank(user, normalized);
+                if (rank >= 0) {
+                    matches.add(new Match(user, rank));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt(Match::getRank)
+                .thenComparingInt(match -> match.getUser().getUsername().length())
+                .thenComparing(match -> match.getUser().getUsername()));
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<UserProjection> content = matches.subList(from, to).stream()
+                .<UserProjection>map(Match::getUser)
+                .toList();
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    private Set<Long> candidates(final String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return postings.getOrDefault(PREFIX_MARKER + query, Set.of());
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.getFirst());
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    // Lower is better; -1 means the user does not match at all.
+    private static int rank(final IndexedUser user, final String query) {
+        if (user.getUsernameKey().equals(query)) {
+            return 0;
+        }
+        if (user.getUsernameKey().startsWith(query)) {
+            return 1;
+        }
+        if (startsAnyWord(user.getDisplayNameKey(), query)) {
+            return 2;
+        }
+        if (user.getUsernameKey().contains(query)) {
+            return 3;
+        }
+        if (user.getDisplayNameKey().contains(query)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    private static boolean startsAnyWord(final String text, final String query) {
+        for (String word : words(text)) {
+            if (word.startsWith(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addPostings(final Map<String, Set<Long>> postings, final IndexedUser user) {
+        for (String key : keys(user)) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(user.getId());
+        }
+    }
+
+    private void removePostings(final IndexedUser user) {
+        for (String key : keys(user)) {
+            Set<Long> posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(user.getId());
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private static Set<String> keys(final IndexedUser user) {
+        Set<String> keys = new HashSet<>();
+        for (String field : List.of(user.getUsernameKey(), user.getDisplayNameKey())) {
+            keys.addAll(grams(field));
+            for (String word : words(field)) {
+                for (int length = 1; length < GRAM_LENGTH && length <= word.length(); length++) {
+                    keys.add(PREFIX_MARKER + word.substring(0, length));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> grams(final String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String[] words(final String text) {
+        return text.split("\\s+");
+    }
+
+    private static String normalize(final String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Value
+    private static class IndexedUser implements UserProjection {
+        long id;
+
+        String username;
+
+        String displayName;
+
+        String image;
+
+        long version;
+
+        long postCount;
+
+        Date lastPostAt;
+
+        String usernameKey;
+
+        String displayNameKey;
+
+        IndexedUser(final long id, final String username, final String displayName, final String image,
+                    final long version, final long postCount, final Date lastPostAt) {
+            this.id = id;
+            this.username = username;
+            this.displayName = displayName;
+            this.image = image;
+            this.version = version;
+            this.postCount = postCount;
+            this.lastPostAt = lastPostAt;
+            this.usernameKey = normalize(username);
+            this.displayNameKey = normalize(displayName);
+        }
+
+        static IndexedUser of(final UserProjection user) {
+            return new IndexedUser(user.getId(), user.getUsername(), user.getDisplayName(), user.getImage(),
+                    user.getVersion(), user.getPostCount(), user.getLastPostAt());
+        }
+    }
+
+    @Value
+    private static class Match {
+        IndexedUser user;
+
+        int rank;
+    }
+}
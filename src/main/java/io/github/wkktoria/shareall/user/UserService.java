@@ -1,50 +1,132 @@
 package io.github.wkktoria.shareall.user;
 
+import io.github.wkktoria.shareall.config.CredentialCache;
 import io.github.wkktoria.shareall.error.NotFoundException;
 import io.github.wkktoria.shareall.file.FileService;
+import io.github.wkktoria.shareall.file.UploadedImage;
+import io.github.wkktoria.shareall.shared.CursorPage;
+import io.github.wkktoria.shareall.shared.Cursors;
+import io.github.wkktoria.shareall.shared.EstimatedSlice;
 import io.github.wkktoria.shareall.user.exception.DuplicateUsernameException;
 import io.github.wkktoria.shareall.user.viewmodel.UserUpdateViewModel;
+import io.github.wkktoria.shareall.user.viewmodel.UserViewModel;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileService fileService;
+    private final CredentialCache credentialCache;
+    private final UserCountEstimator userCountEstimator;
+    private final UserSearchIndex userSearchIndex;
+    private final UsernameFilter usernameFilter;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserService(final UserRepository userRepository,
                        final PasswordEncoder passwordEncoder,
-                       final FileService fileService) {
+                       final FileService fileService,
+                       final CredentialCache credentialCache,
+                       final UserCountEstimator userCountEstimator,
+                       final UserSearchIndex userSearchIndex,
+                       final UsernameFilter usernameFilter,
+                       final ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.fileService = fileService;
+        this.credentialCache = credentialCache;
+        this.userCountEstimator = userCountEstimator;
+        this.userSearchIndex = userSearchIndex;
+        this.usernameFilter = usernameFilter;
+        this.eventPublisher = eventPublisher;
     }
 
     public User save(final User user) {
-        User inDbUser = userRepository.findByUsername(user.getUsername());
-
-        if (inDbUser != null) {
+        if (usernameFilter.isTaken(user.getUsername())) {
             throw new DuplicateUsernameException();
         }
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateUsernameException();
+        }
+        userSearchIndex.index(saved);
+        return saved;
     }
 
-    public Page<User> getUsers(User loggedInUser, final Pageable pageable) {
+    public Page<UserProjection> getUsers(final AuthUser loggedInUser, final Pageable pageable) {
         if (loggedInUser != null) {
-            return userRepository.findByUsernameNot(loggedInUser.getUsername(), pageable);
+            return userRepository.findProjectedByUsernameNot(loggedInUser.getUsername(), pageable);
+        }
+        return userRepository.findProjectedBy(pageable);
+    }
+
+    public EstimatedSlice<UserProjection> getUsersSlice(final AuthUser loggedInUser, final Pageable pageable) {
+        Slice<UserProjection> slice = loggedInUser != null
+                ? userRepository.findSlicedByUsernameNot(loggedInUser.getUsername(), pageable)
+                : userRepository.findSlicedBy(pageable);
+
+        long approximateTotal = userCountEstimator.getApproximateCount();
+        if (loggedInUser != null && approximateTotal > 0) {
+            approximateTotal--;
+        }
+        return new EstimatedSlice<>(slice, approximateTotal);
+    }
+
+    public Page<UserProjection> search(final String query, final Pageable pageable) {
+        if (query.isBlank()) {
+            return Page.empty(pageable);
+        }
+        if (!userSearchIndex.isComplete()) {
+            String term = query.trim();
+            return userRepository.findProjectedByUsernameContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
+                    term, term, pageable);
+        }
+        return userSearchIndex.search(query, pageable);
+    }
+
+    public CursorPage<UserProjection> getUsersAfter(final AuthUser loggedInUser, final String after, final int size) {
+        boolean first = after.isEmpty();
+        long lastId = first ? Long.MIN_VALUE : Cursors.decode(after);
+        Limit limit = Limit.of(size + 1);
+
+        List<UserProjection> rows = loggedInUser != null
+                ? userRepository.findProjectedByUsernameNotAndIdGreaterThanOrderByIdAsc(loggedInUser.getUsername(),
+                lastId, limit)
+                : userRepository.findProjectedByIdGreaterThanOrderByIdAsc(lastId, limit);
+
+        return CursorPage.of(rows, size, first ? null : after, UserProjection::getId);
+    }
+
+    public UserVersion getVersionByUsername(final String username) {
+        UserVersion version = userRepository.findVersionByUsername(username);
+        if (version == null) {
+            throw new NotFoundException(username + " not found");
         }
-        return userRepository.findAll(pageable);
+        return version;
     }
 
-    public User getByUsername(final String username) {
-        User inDbUser = userRepository.findByUsername(username);
+    public long getIdByUsername(final String username) {
+        return getVersionByUsername(username).getId();
+    }
+
+    public UserProjection getByUsername(final String username) {
+        UserProjection inDbUser = userRepository.findProjectedByUsername(username);
         if (inDbUser == null) {
             throw new NotFoundException(username + " not found");
         }
@@ -52,20 +134,47 @@ public class UserService {
     }
 
     public User update(final long id, UserUpdateViewModel userUpdate) {
-        User inDbUser = userRepository.getReferenceById(id);
-        inDbUser.setDisplayName(userUpdate.getDisplayName());
-
+        String savedImageName = null;
         if (userUpdate.getImage() != null) {
-            String savedImageName;
             try {
                 savedImageName = fileService.saveProfileImage(userUpdate.getImage());
-                fileService.deleteProfileImage(inDbUser.getImage());
-                inDbUser.setImage(savedImageName);
             } catch (IOException e) {
                 System.err.println(e.getMessage());
             }
         }
 
-        return userRepository.save(inDbUser);
+        String newImage = savedImageName;
+        return saveUpdated(id, user -> {
+            user.setDisplayName(userUpdate.getDisplayName());
+            if (newImage != null) {
+                user.setImage(newImage);
+            }
+        });
+    }
+
+    public User updateImage(final long id, final InputStream content) throws IOException {
+        try (UploadedImage image = fileService.uploadProfileImage(content)) {
+            String savedImageName = fileService.saveProfileImage(image);
+            return saveUpdated(id, user -> user.setImage(savedImageName));
+        }
+    }
+
+    private User saveUpdated(final long id, final Consumer<User> change) {
+        User inDbUser = userRepository.getReferenceById(id);
+        String previousImage = inDbUser.getImage();
+        change.accept(inDbUser);
+
+        User updated = userRepository.save(inDbUser);
+        if (previousImage != null && !previousImage.equals(updated.getImage())) {
+            fileService.deleteProfileImage(previousImage);
+        }
+        return published(updated);
+    }
+
+    private User published(final User updated) {
+        credentialCache.evict(updated.getUsername());
+        userSearchIndex.index(updated);
+        eventPublisher.publishEvent(new UserUpdatedEvent(new UserViewModel(updated)));
+        return updated;
     }
 }
@@ -0,0 +1,9 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.user.viewmodel.UserViewModel;
+import lombok.Value;
+
+@Value
+public class UserUpdatedEvent {
+    UserViewModel user;
+}
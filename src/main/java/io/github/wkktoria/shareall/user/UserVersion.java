@@ -0,0 +1,9 @@
+package io.github.wkktoria.shareall.user;
+
+public interface UserVersion {
+    long getId();
+
+    long getVersion();
+
+    long getPostCount();
+}
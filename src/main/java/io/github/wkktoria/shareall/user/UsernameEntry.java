@@ -0,0 +1,7 @@
+package io.github.wkktoria.shareall.user;
+
+interface UsernameEntry {
+    long getId();
+
+    String getUsername();
+}
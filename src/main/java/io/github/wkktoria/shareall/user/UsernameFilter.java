@@ -0,0 +1,91 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class UsernameFilter {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Counter definitelyFree;
+    private final Counter confirmedTaken;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+
+    UsernameFilter(final UserRepository userRepository, final AppConfig appConfig, final MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.expectedUsers = appConfig.getUsernameFilter().getExpectedUsers();
+        this.falsePositiveRate = appConfig.getUsernameFilter().getFalsePositiveRate();
+        this.filter = new BloomFilter(expectedUsers, falsePositiveRate);
+
+        String checks = "shareall.users.username-filter.checks";
+        this.definitelyFree = Counter.builder(checks).tag("result", "free").register(meterRegistry);
+        this.confirmedTaken = Counter.builder(checks).tag("result", "taken").register(meterRegistry);
+        this.falsePositives = Counter.builder(checks).tag("result", "false-positive").register(meterRegistry);
+
+        Gauge.builder("shareall.users.username-filter.bits", this, f -> f.filter.getBitSize())
+                .register(meterRegistry);
+        Gauge.builder("shareall.users.username-filter.hash-functions", this, f -> f.filter.getHashFunctions())
+                .register(meterRegistry);
+        Gauge.builder("shareall.users.username-filter.insertions", this, f -> f.filter.getInsertions())
+                .register(meterRegistry);
+        Gauge.builder("shareall.users.username-filter.false-positive-rate", this,
+                        f -> f.filter.getExpectedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuild() {
+        long count = userRepository.count();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedUsers, count * 2), falsePositiveRate);
+
+        // Keyset paging by id: an unordered OFFSET scan may skip a username, and a skipped one would be reported free.
+        long lastId = Long.MIN_VALUE;
+        List<UsernameEntry> batch;
+        do {
+            batch = userRepository.findUsernamesByIdGreaterThan(lastId, Limit.of(REBUILD_BATCH_SIZE));
+            for (UsernameEntry entry : batch) {
+                rebuilt.put(entry.getUsername());
+                lastId = entry.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        filter = rebuilt;
+    }
+
+    public void add(final String username) {
+        filter.put(username);
+    }
+
+    public boolean mightExist(final String username) {
+        return filter.mightContain(username);
+    }
+
+    public boolean isTaken(final String username) {
+        if (username == null) {
+            return false;
+        }
+        if (!filter.mightContain(username)) {
+            definitelyFree.increment();
+            return false;
+        }
+        if (userRepository.existsByUsername(username)) {
+            confirmedTaken.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.wkktoria.shareall.user;
+
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+
+class UsernameFilterListener {
+    private final ObjectProvider<UsernameFilter> usernameFilter;
+
+    UsernameFilterListener(final ObjectProvider<UsernameFilter> usernameFilter) {
+        this.usernameFilter = usernameFilter;
+    }
+
+    @PostPersist
+    void onPersist(final User user) {
+        usernameFilter.ifAvailable(filter -> filter.add(user.getUsername()));
+    }
+}
@@ -1,15 +1,98 @@
 package io.github.wkktoria.shareall.user.login;
 
+import io.github.wkktoria.shareall.config.AuthTokenService;
+import io.github.wkktoria.shareall.config.TokenClaims;
+import io.github.wkktoria.shareall.error.NotFoundException;
+import io.github.wkktoria.shareall.error.UnauthorizedException;
+import io.github.wkktoria.shareall.shared.GenericResponse;
 import io.github.wkktoria.shareall.shared.annotation.CurrentUser;
-import io.github.wkktoria.shareall.user.User;
-import io.github.wkktoria.shareall.user.viewmodel.UserViewModel;
+import io.github.wkktoria.shareall.user.AuthUser;
+import io.github.wkktoria.shareall.user.UserProjection;
+import io.github.wkktoria.shareall.user.UserService;
+import io.github.wkktoria.shareall.user.viewmodel.LoginViewModel;
+import io.github.wkktoria.shareall.user.viewmodel.TokenRefreshViewModel;
+import jakarta.validation.Valid;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 class LoginController {
+    private final AuthTokenService authTokenService;
+    private final UserService userService;
+
+    LoginController(final AuthTokenService authTokenService, final UserService userService) {
+        this.authTokenService = authTokenService;
+        this.userService = userService;
+    }
+
     @PostMapping("/api/1.0/login")
-    UserViewModel handleLogin(@CurrentUser User loggedInUser) {
-        return new UserViewModel(loggedInUser);
+    LoginViewModel handleLogin(@CurrentUser AuthUser loggedInUser, final Authentication authentication,
+                               @RequestParam(defaultValue = "false") final boolean token) {
+        // A bearer token only carries the id and username, so the rest of the profile is read from the database.
+        LoginViewModel login = authentication.getCredentials() instanceof TokenClaims
+                ? new LoginViewModel(currentProfile(loggedInUser))
+                : new LoginViewModel(loggedInUser);
+
+        if (token) {
+            issueTokens(login);
+        }
+
+        return login;
+    }
+
+    @PostMapping("/api/1.0/login/refresh")
+    LoginViewModel refreshToken(@Valid @RequestBody final TokenRefreshViewModel refresh) {
+        TokenClaims claims = authTokenService.verify(refresh.getRefreshToken(), AuthTokenService.REFRESH_TOKEN)
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+
+        UserProjection user;
+        try {
+            user = userService.getByUsername(claims.getUsername());
+        } catch (NotFoundException e) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+
+        if (user.getId() != claims.getUserId()) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+
+        authTokenService.revoke(claims);
+
+        LoginViewModel login = new LoginViewModel(user);
+        issueTokens(login);
+        return login;
+    }
+
+    @PostMapping("/api/1.0/logout")
+    GenericResponse handleLogout(final Authentication authentication,
+                                 @RequestBody(required = false) final TokenRefreshViewModel refresh) {
+        if (authentication.getCredentials() instanceof TokenClaims accessToken) {
+            authTokenService.revoke(accessToken);
+        }
+
+        if (refresh != null) {
+            authTokenService.verify(refresh.getRefreshToken(), AuthTokenService.REFRESH_TOKEN)
+                    .filter(claims -> claims.getUsername().equals(authentication.getName()))
+                    .ifPresent(authTokenService::revoke);
+        }
+
+        return new GenericResponse("Logged out successfully");
+    }
+
+    private UserProjection currentProfile(final AuthUser loggedInUser) {
+        try {
+            return userService.getByUsername(loggedInUser.getUsername());
+        } catch (NotFoundException e) {
+            throw new UnauthorizedException("Invalid access token");
+        }
+    }
+
+    private void issueTokens(final LoginViewModel login) {
+        login.setAccessToken(authTokenService.issueAccessToken(login.getId(), login.getUsername()));
+        login.setRefreshToken(authTokenService.issueRefreshToken(login.getId(), login.getUsername()));
+        login.setExpiresIn(authTokenService.getAccessTokenTtlSeconds());
     }
 }
@@ -1,7 +1,6 @@
 package io.github.wkktoria.shareall.user.validator;
 
-import io.github.wkktoria.shareall.user.User;
-import io.github.wkktoria.shareall.user.UserRepository;
+import io.github.wkktoria.shareall.user.UsernameFilter;
 import io.github.wkktoria.shareall.user.annotation.UniqueUsername;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
@@ -9,12 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 public class UniqueUsernameValidator implements ConstraintValidator<UniqueUsername, String> {
     @Autowired
-    private UserRepository userRepository;
+    private UsernameFilter usernameFilter;
 
     @Override
     public boolean isValid(final String value, final ConstraintValidatorContext context) {
-        User inDbUser = userRepository.findByUsername(value);
-
-        return inDbUser == null;
+        return !usernameFilter.isTaken(value);
     }
 }
@@ -0,0 +1,30 @@
+package io.github.wkktoria.shareall.user.viewmodel;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.github.wkktoria.shareall.user.AuthUser;
+import io.github.wkktoria.shareall.user.UserProjection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class LoginViewModel extends UserViewModel {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String accessToken;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long expiresIn;
+
+    public LoginViewModel(final UserProjection user) {
+        super(user);
+    }
+
+    public LoginViewModel(final AuthUser user) {
+        super(user);
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.wkktoria.shareall.user.viewmodel;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class TokenRefreshViewModel {
+    @NotNull
+    private String refreshToken;
+}
@@ -0,0 +1,31 @@
+package io.github.wkktoria.shareall.user.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class UserImportResultViewModel {
+    private long imported;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(final long line, final String username, final String message) {
+        errors.add(new RowError(line, username, message));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+
+        private String username;
+
+        private String message;
+    }
+}
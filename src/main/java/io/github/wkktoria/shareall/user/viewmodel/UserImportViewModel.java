@@ -0,0 +1,25 @@
+package io.github.wkktoria.shareall.user.viewmodel;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class UserImportViewModel {
+    @NotNull(message = "{shareall.constraints.username.NotNull.message}")
+    @Size(min = 4, max = 255)
+    private String username;
+
+    @NotNull
+    @Size(min = 4, max = 255)
+    private String displayName;
+
+    @NotNull
+    @Size(min = 8, max = 255)
+    @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[^\\da-zA-Z]).{8,}$",
+            message = "{shareall.constraints.password.Pattern.message}")
+    private String password;
+}
@@ -1,6 +1,9 @@
 package io.github.wkktoria.shareall.user.viewmodel;
 
+import io.github.wkktoria.shareall.user.AuthUser;
 import io.github.wkktoria.shareall.user.User;
+import io.github.wkktoria.shareall.user.UserProjection;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -12,10 +15,35 @@ public class UserViewModel {
     private String displayName;
     private String image;
 
+    // Left out where only the author's identity is known, such as inside a post.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long postCount;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long lastPostAt;
+
     public UserViewModel(final User user) {
         this.setId(user.getId());
         this.setUsername(user.getUsername());
         this.setDisplayName(user.getDisplayName());
         this.setImage(user.getImage());
+        this.setPostCount(user.getPostCount());
+        this.setLastPostAt(user.getLastPostAt() == null ? null : user.getLastPostAt().getTime());
+    }
+
+    public UserViewModel(final UserProjection user) {
+        this.setId(user.getId());
+        this.setUsername(user.getUsername());
+        this.setDisplayName(user.getDisplayName());
+        this.setImage(user.getImage());
+        this.setPostCount(user.getPostCount());
+        this.setLastPostAt(user.getLastPostAt() == null ? null : user.getLastPostAt().getTime());
+    }
+
+    public UserViewModel(final AuthUser user) {
+        this.setId(user.getId());
+        this.setUsername(user.getUsername());
+        this.setDisplayName(user.getDisplayName());
+        this.setImage(user.getImage());
     }
 }
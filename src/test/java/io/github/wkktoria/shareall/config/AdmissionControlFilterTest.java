@@ -0,0 +1,94 @@
+package io.github.wkktoria.shareall.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+    private static final int ATTEMPTS = 10;
+    private static final int USERNAME_BUDGET = 3;
+
+    @Test
+    void doFilter_whenParallelBadAttemptsExceedBudget_rejectsTheRestBeforeAuthentication() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(admission(), new SimpleMeterRegistry());
+        AtomicInteger authenticated = new AtomicInteger();
+        // Stands in for the password check: slow enough that every attempt is in flight before the first finishes.
+        FilterChain authentication = (request, response) -> {
+            authenticated.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((MockHttpServletResponse) response).setStatus(HttpStatus.UNAUTHORIZED.value());
+        };
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS)) {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                statuses.add(executor.submit(() -> {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    start.await();
+                    filter.doFilter(basicAuth("user1", "wrong"), response, authentication);
+                    return response.getStatus();
+                }));
+            }
+            start.countDown();
+        }
+
+        int rejected = 0;
+        for (Future<Integer> status : statuses) {
+            if (status.get() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                rejected++;
+            }
+        }
+        assertThat(rejected).isEqualTo(ATTEMPTS - USERNAME_BUDGET);
+        assertThat(authenticated.get()).isEqualTo(USERNAME_BUDGET);
+    }
+
+    @Test
+    void doFilter_whenAttemptsSucceed_doesNotUseUpBudget() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(admission(), new SimpleMeterRegistry());
+        FilterChain authentication = (request, response) ->
+                ((MockHttpServletResponse) response).setStatus(HttpStatus.OK.value());
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(basicAuth("user1", "P4sW@ord"), response, authentication);
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private static AppConfig.Admission admission() {
+        AppConfig.Admission admission = new AppConfig.Admission();
+        admission.setClientCapacity(1000);
+        admission.setUsernameCapacity(USERNAME_BUDGET);
+        admission.setUsernameRefillPeriod(Duration.ofMinutes(1));
+        return admission;
+    }
+
+    private static MockHttpServletRequest basicAuth(final String username, final String password) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/1.0/login");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+}
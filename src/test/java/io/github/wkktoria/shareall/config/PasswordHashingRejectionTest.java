@@ -0,0 +1,64 @@
+package io.github.wkktoria.shareall.config;
+
+import io.github.wkktoria.shareall.user.User;
+import io.github.wkktoria.shareall.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+// A timeout no real hash can meet makes every hashing attempt get rejected.
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "shareall.password.hashing-timeout=1ns")
+@ActiveProfiles("test")
+class PasswordHashingRejectionTest {
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void cleanup() {
+        userRepository.deleteAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @Test
+    void postUser_whenPasswordHashingIsRejected_receiveServiceUnavailableWithRetryAfter() {
+        ResponseEntity<Object> response = testRestTemplate.postForEntity("/api/1.0/users", createValidUser(),
+                Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+                .isEqualTo(PasswordHashingRejectedException.RETRY_AFTER_SECONDS);
+    }
+
+    @Test
+    void postLogin_whenPasswordHashingIsRejected_receiveServiceUnavailableWithRetryAfter() {
+        User user = createValidUser();
+        user.setPassword(new BCryptPasswordEncoder(10).encode(user.getPassword()));
+        userRepository.save(user);
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor(user.getUsername(), "P4sW@ord"));
+
+        ResponseEntity<Object> response = testRestTemplate.postForEntity("/api/1.0/login", null, Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+                .isEqualTo(PasswordHashingRejectedException.RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.wkktoria.shareall.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class RateLimiterTest {
+    @Test
+    void tryAcquire_whenCapacityIsNotUsedUp_returnsTrue() {
+        RateLimiter rateLimiter = new RateLimiter(3, Duration.ofMinutes(1), 100);
+
+        assertThat(rateLimiter.tryAcquire("client")).isTrue();
+        assertThat(rateLimiter.tryAcquire("client")).isTrue();
+        assertThat(rateLimiter.tryAcquire("client")).isTrue();
+    }
+
+    @Test
+    void tryAcquire_whenCapacityIsUsedUp_returnsFalse() {
+        RateLimiter rateLimiter = new RateLimiter(3, Duration.ofMinutes(1), 100);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client");
+        }
+
+        assertThat(rateLimiter.tryAcquire("client")).isFalse();
+        assertThat(rateLimiter.isExhausted("client")).isTrue();
+    }
+
+    @Test
+    void tryAcquire_whenAnotherKeyUsedUpCapacity_returnsTrue() {
+        RateLimiter rateLimiter = new RateLimiter(1, Duration.ofMinutes(1), 100);
+        rateLimiter.tryAcquire("client1");
+
+        assertThat(rateLimiter.tryAcquire("client2")).isTrue();
+    }
+
+    @Test
+    void refund_whenCapacityIsUsedUp_allowsAnotherAcquire() {
+        RateLimiter rateLimiter = new RateLimiter(2, Duration.ofMinutes(1), 100);
+        rateLimiter.tryAcquire("client");
+        rateLimiter.tryAcquire("client");
+
+        rateLimiter.refund("client");
+
+        assertThat(rateLimiter.tryAcquire("client")).isTrue();
+        assertThat(rateLimiter.tryAcquire("client")).isFalse();
+    }
+
+    @Test
+    void refund_whenBucketIsFull_doesNotRaiseCapacity() {
+        RateLimiter rateLimiter = new RateLimiter(1, Duration.ofMinutes(1), 100);
+        rateLimiter.tryAcquire("client");
+        rateLimiter.refund("client");
+        rateLimiter.refund("client");
+
+        assertThat(rateLimiter.tryAcquire("client")).isTrue();
+        assertThat(rateLimiter.tryAcquire("client")).isFalse();
+    }
+
+    @Test
+    void isExhausted_whenKeyWasNeverSeen_returnsFalse() {
+        RateLimiter rateLimiter = new RateLimiter(1, Duration.ofMinutes(1), 100);
+
+        assertThat(rateLimiter.isExhausted("client")).isFalse();
+    }
+
+    @Test
+    void retryAfterSeconds_whenCapacityIsUsedUp_returnsRefillPeriod() {
+        RateLimiter rateLimiter = new RateLimiter(1, Duration.ofSeconds(30), 100);
+        rateLimiter.tryAcquire("client");
+
+        assertThat(rateLimiter.retryAfterSeconds("client")).isBetween(29L, 31L);
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.wkktoria.shareall.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadAdmissionFilterTest {
+    @Test
+    void doFilter_whenUploadsAreInProgress_rejectsTheNextBeforeItsBodyIsRead() throws Exception {
+        UploadAdmissionFilter filter = new UploadAdmissionFilter(attachments());
+        CountDownLatch inProgress = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        // Stands in for multipart resolution and the controller: holds its permit until told to finish.
+        FilterChain upload = (request, response) -> {
+            admitted.incrementAndGet();
+            inProgress.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<Integer> first = executor.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(upload(1024), response, upload);
+                return response.getStatus();
+            });
+            assertThat(inProgress.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(upload(1024), rejected, upload);
+            assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+            assertThat(admitted.get()).isEqualTo(1);
+
+            finish.countDown();
+            assertThat(first.get()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(upload(1024), response, upload);
+        assertThat(admitted.get()).isEqualTo(2);
+    }
+
+    @Test
+    void doFilter_whenContentLengthExceedsLimit_receivePayloadTooLarge() throws Exception {
+        UploadAdmissionFilter filter = new UploadAdmissionFilter(attachments());
+        AtomicInteger admitted = new AtomicInteger();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(upload((int) DataSize.ofMegabytes(2).toBytes()), response,
+                (request, ignored) -> admitted.incrementAndGet());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(admitted.get()).isZero();
+    }
+
+    @Test
+    void doFilter_whenRequestIsNotAnUpload_passesThroughWithoutPermit() throws Exception {
+        AppConfig.Attachments attachments = attachments();
+        attachments.setMaxConcurrentUploads(0);
+        UploadAdmissionFilter filter = new UploadAdmissionFilter(attachments);
+        AtomicInteger passed = new AtomicInteger();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest download = new MockHttpServletRequest("GET", "/api/1.0/attachments/" + "0".repeat(64));
+        download.setServletPath(download.getRequestURI());
+        filter.doFilter(download, response, (request, ignored) -> passed.incrementAndGet());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(passed.get()).isEqualTo(1);
+    }
+
+    private static AppConfig.Attachments attachments() {
+        AppConfig.Attachments attachments = new AppConfig.Attachments();
+        attachments.setMaxSize(DataSize.ofKilobytes(64));
+        attachments.setMaxConcurrentUploads(1);
+        attachments.setUploadWaitTimeout(Duration.ofMillis(100));
+        return attachments;
+    }
+
+    private static MockHttpServletRequest upload(final int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/1.0/attachments");
+        request.setServletPath("/api/1.0/attachments");
+        request.setContentType("multipart/form-data; boundary=upload");
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+}
@@ -0,0 +1,260 @@
+package io.github.wkktoria.shareall.file;
+
+import io.github.wkktoria.shareall.config.AppConfig;
+import io.github.wkktoria.shareall.post.PostRepository;
+import io.github.wkktoria.shareall.user.UserRepository;
+import io.github.wkktoria.shareall.user.UserService;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "shareall.attachments.max-size=64KB")
+@ActiveProfiles("test")
+class AttachmentControllerTest {
+    private static final String API_1_0_ATTACHMENTS = "/api/1.0/attachments";
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @BeforeEach
+    void cleanup() {
+        postRepository.deleteAll();
+        attachmentRepository.deleteAll();
+        userRepository.deleteAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @AfterEach
+    void cleanDirectory() throws IOException {
+        postRepository.deleteAll();
+        attachmentRepository.deleteAll();
+        FileUtils.cleanDirectory(new File(appConfig.getFullAttachmentsPath()));
+    }
+
+    @Test
+    void uploadAttachment_whenUserIsUnauthorized_receiveUnauthorized() {
+        ResponseEntity<Object> response = upload(new ClassPathResource("test-png.png"), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void uploadAttachment_whenImageIsUploaded_receiveDetectedTypeAndContentHashName() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Map<String, Object>> response = upload(new ClassPathResource("test-png.png"));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Map<String, Object> body = Objects.requireNonNull(response.getBody());
+        assertThat(body.get("fileType")).isEqualTo("image/png");
+        assertThat((String) body.get("name")).matches("[0-9a-f]{64}");
+        assertThat(new File(appConfig.getFullAttachmentsPath(), (String) body.get("name"))).exists();
+    }
+
+    @Test
+    void uploadAttachment_whenFileExceedsMaxSize_receivePayloadTooLarge() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = upload(namedResource(new byte[100 * 1024], "large.bin"), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(attachmentRepository.count()).isZero();
+        assertThat(new File(appConfig.getFullAttachmentsPath()).list()).isEmpty();
+    }
+
+    @Test
+    void getAttachment_whenAttachmentExists_receiveBytesWithContentTypeAndEtag() throws IOException {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        ClassPathResource image = new ClassPathResource("test-png.png");
+        String name = (String) Objects.requireNonNull(upload(image).getBody()).get("name");
+
+        ResponseEntity<byte[]> response = testRestTemplate.getForEntity(API_1_0_ATTACHMENTS + "/" + name,
+                byte[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + name + "\"");
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getBody()).isEqualTo(FileUtils.readFileToByteArray(image.getFile()));
+    }
+
+    @Test
+    void getAttachment_whenAttachmentIsNotAnImage_receiveOctetStreamAsDownload() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        byte[] html = "<html><body><script>alert(document.cookie)</script></body></html>".getBytes();
+        String name = (String) Objects.requireNonNull(upload(namedResource(html, "page.html")).getBody())
+                .get("name");
+
+        ResponseEntity<byte[]> response = testRestTemplate.getForEntity(API_1_0_ATTACHMENTS + "/" + name,
+                byte[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(response.getHeaders().getContentDisposition().isAttachment()).isTrue();
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getBody()).isEqualTo(html);
+    }
+
+    @Test
+    void getAttachment_whenEtagMatches_receiveNotModified() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        String name = (String) Objects.requireNonNull(upload(new ClassPathResource("test-png.png")).getBody())
+                .get("name");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"" + name + "\"");
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(API_1_0_ATTACHMENTS + "/" + name,
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void getAttachment_whenAttachmentDoesNotExist_receiveNotFound() {
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_ATTACHMENTS + "/" + "0".repeat(64),
+                Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void getAttachment_whenAttachmentDoesNotExistAndEtagIsSent_receiveNotFound() {
+        String name = "0".repeat(64);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"" + name + "\"");
+        ResponseEntity<Object> response = testRestTemplate.exchange(API_1_0_ATTACHMENTS + "/" + name,
+                HttpMethod.GET, new HttpEntity<>(headers), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void createPost_whenAttachmentIsOwnedByAuthor_attachmentIsListedWithPost() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        Map<String, Object> attachment = Objects.requireNonNull(upload(new ClassPathResource("test-png.png"))
+                .getBody());
+
+        ResponseEntity<Object> created = createPost(attachment.get("id"), Object.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<Map<String, Object>> posts = testRestTemplate.exchange("/api/1.0/posts", HttpMethod.GET,
+                null, new ParameterizedTypeReference<>() {
+                });
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> content = (List<Map<String, Object>>) Objects.requireNonNull(posts.getBody())
+                .get("content");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> listed = (Map<String, Object>) content.get(0).get("attachment");
+        assertThat(listed.get("name")).isEqualTo(attachment.get("name"));
+        assertThat(listed.get("fileType")).isEqualTo("image/png");
+    }
+
+    @Test
+    void createPost_whenAttachmentBelongsToAnotherUser_receiveBadRequest() {
+        userService.save(createValidUser("user1"));
+        userService.save(createValidUser("user2"));
+        authenticate("user1");
+        Object attachmentId = Objects.requireNonNull(upload(new ClassPathResource("test-png.png")).getBody())
+                .get("id");
+
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user2");
+        ResponseEntity<Object> response = createPost(attachmentId, Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void createPost_whenAttachmentIsAlreadyUsed_receiveBadRequest() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        Object attachmentId = Objects.requireNonNull(upload(new ClassPathResource("test-png.png")).getBody())
+                .get("id");
+        createPost(attachmentId, Object.class);
+
+        ResponseEntity<Object> response = createPost(attachmentId, Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private <T> ResponseEntity<T> createPost(final Object attachmentId, final Class<T> responseType) {
+        Map<String, Object> post = Map.of("content", "Post with an attachment",
+                "attachment", Map.of("id", attachmentId));
+        return testRestTemplate.postForEntity("/api/1.0/posts", post, responseType);
+    }
+
+    private ResponseEntity<Map<String, Object>> upload(final Resource file) {
+        return testRestTemplate.exchange(API_1_0_ATTACHMENTS, HttpMethod.POST, multipart(file),
+                new ParameterizedTypeReference<>() {
+                });
+    }
+
+    private <T> ResponseEntity<T> upload(final Resource file, final Class<T> responseType) {
+        return testRestTemplate.postForEntity(API_1_0_ATTACHMENTS, multipart(file), responseType);
+    }
+
+    private static HttpEntity<MultiValueMap<String, Object>> multipart(final Resource file) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", file);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(body, headers);
+    }
+
+    private static Resource namedResource(final byte[] content, final String filename) {
+        return new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private void authenticate(final String username) {
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor(username, "P4sW@ord"));
+    }
+}
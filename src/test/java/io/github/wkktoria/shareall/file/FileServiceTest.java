@@ -7,13 +7,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Base64;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -46,4 +52,106 @@ class FileServiceTest {
         String fileType = fileService.detectType(fileArray);
         assertThat(fileType).isEqualToIgnoringCase("image/png");
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveProfileImage_whenBase64ImageProvided_storesDecodedBytesUnderReturnedName() throws IOException {
+        byte[] image = FileUtils.readFileToByteArray(new ClassPathResource("profile.png").getFile());
+
+        String name = fileService.saveProfileImage(Base64.getEncoder().encodeToString(image));
+
+        File stored = new File(appConfig.getFullProfileImagesPath(), name);
+        assertThat(FileUtils.readFileToByteArray(stored)).isEqualTo(image);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).containsExactly(name);
+    }
+
+    @Test
+    void saveProfileImage_whenBase64IsMalformed_leavesNoFileBehind() {
+        assertThatThrownBy(() -> fileService.saveProfileImage("not*base64"))
+                .isInstanceOf(IOException.class);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+
+    @Test
+    void detectType_whenJpgFileProvided_returnsImageJpeg() throws IOException {
+        byte[] fileArray = FileUtils.readFileToByteArray(new ClassPathResource("test-jpg.jpg").getFile());
+        assertThat(fileService.detectType(fileArray)).isEqualToIgnoringCase("image/jpeg");
+    }
+
+    @Test
+    void detectType_whenGifFileProvided_fallsBackToTika() throws IOException {
+        byte[] fileArray = FileUtils.readFileToByteArray(new ClassPathResource("test-gif.gif").getFile());
+        assertThat(fileService.detectType(fileArray)).isEqualToIgnoringCase("image/gif");
+    }
+
+    @Test
+    void detectProfileImageType_whenOutsideRequest_detectsTypeWithoutWritingFile() throws IOException {
+        byte[] image = FileUtils.readFileToByteArray(new ClassPathResource("profile.png").getFile());
+
+        String fileType = fileService.detectProfileImageType(Base64.getEncoder().encodeToString(image));
+
+        assertThat(fileType).isEqualToIgnoringCase("image/png");
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+
+    @Test
+    void detectProfileImageType_whenInRequestAndTypeIsUnsupported_writesNoFile() throws IOException {
+        FileService requestScoped = new FileService(appConfig, new ProfileImageUploads());
+        byte[] image = FileUtils.readFileToByteArray(new ClassPathResource("test-gif.gif").getFile());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            String fileType = requestScoped.detectProfileImageType(Base64.getEncoder().encodeToString(image));
+
+            assertThat(fileType).isEqualToIgnoringCase("image/gif");
+            assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void detectProfileImageType_whenInRequestAndTypeIsSupported_decodesOnceForSave() throws IOException {
+        FileService requestScoped = new FileService(appConfig, new ProfileImageUploads());
+        byte[] image = FileUtils.readFileToByteArray(new ClassPathResource("profile.png").getFile());
+        String base64Image = Base64.getEncoder().encodeToString(image);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertThat(requestScoped.detectProfileImageType(base64Image)).isEqualToIgnoringCase("image/png");
+            assertThat(new File(appConfig.getFullProfileImagesPath()).list()).hasSize(1);
+
+            String name = requestScoped.saveProfileImage(base64Image);
+            assertThat(new File(appConfig.getFullProfileImagesPath()).list()).containsExactly(name);
+            assertThat(FileUtils.readFileToByteArray(new File(appConfig.getFullProfileImagesPath(), name)))
+                    .isEqualTo(image);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void uploadProfileImage_whenTypeIsUnsupported_throwsAndLeavesNoFileBehind() {
+        assertThatThrownBy(() -> fileService.uploadProfileImage(new ClassPathResource("test-gif.gif").getInputStream()))
+                .isInstanceOf(UnsupportedProfileImageException.class);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+
+    @Test
+    void upload_whenStreamProvided_detectsTypeAndDiscardsFileOnClose() throws IOException {
+        UploadedImage image = fileService.upload(new ClassPathResource("test-jpg.jpg").getInputStream());
+
+        assertThat(image.getFileType()).isEqualToIgnoringCase("image/jpeg");
+        assertThat(image.getFile()).exists();
+        image.close();
+        assertThat(image.getFile()).doesNotExist();
+    }
+
+    @Test
+    void uploadProfileImage_whenStreamExceedsMaxSize_throwsAndLeavesNoFileBehind() {
+        appConfig.setMaxProfileImageSize(DataSize.ofBytes(1024));
+
+        assertThatThrownBy(() -> fileService.uploadProfileImage(new ClassPathResource("profile.png").getInputStream()))
+                .isInstanceOf(ProfileImageTooLargeException.class);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+}
@@ -4,8 +4,18 @@ import static io.github.wkktoria.shareall.TestUtil.createValidPost;
 import static io.github.wkktoria.shareall.TestUtil.createValidUser;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -16,6 +26,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
@@ -23,9 +37,11 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import io.github.wkktoria.shareall.error.ApiError;
+import io.github.wkktoria.shareall.user.PostCounters;
 import io.github.wkktoria.shareall.user.User;
 import io.github.wkktoria.shareall.user.UserRepository;
 import io.github.wkktoria.shareall.user.UserService;
+import io.github.wkktoria.shareall.user.viewmodel.UserUpdateViewModel;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -45,10 +61,24 @@ class PostControllerTest {
 	@Autowired
 	private PostRepository postRepository;
 
+	@Autowired
+	private HotFeed hotFeed;
+
+	@Autowired
+	private PostCounters postCounters;
+
+	@Autowired
+	private PostSearchIndex postSearchIndex;
+
+	@Autowired
+	private PostStream postStream;
+
 	@BeforeEach
 	void cleanup() {
 		userRepository.deleteAll();
 		postRepository.deleteAll();
+		hotFeed.warm();
+		postSearchIndex.rebuild();
 		testRestTemplate.getRestTemplate().getInterceptors().clear();
 	}
 
@@ -182,7 +212,7 @@ class PostControllerTest {
 	}
 
 	@Test
-	void createPost_whenPostIsValidAndUserIsAuthorized_postCanBeAccessedFromUserEntity() {
+	void createPost_whenPostIsValidAndUserIsAuthorized_postCanBeFoundByItsUser() {
 		userService.save(createValidUser("user1"));
 		authenticate("user1");
 
@@ -190,7 +220,334 @@ class PostControllerTest {
 		postPost(post, Object.class);
 
 		User inDbUser = userRepository.findByUsername("user1");
-		assertThat(inDbUser.getPosts().size()).isEqualTo(1);
+		assertThat(postRepository.findUserFeedBefore(inDbUser.getId(), Long.MAX_VALUE, Limit.unlimited()).size())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void getPosts_whenThereAreNoPosts_receiveOkWithEmptyContent() {
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(((List<?>) Objects.requireNonNull(response.getBody()).get("content")).size()).isEqualTo(0);
+	}
+
+	@Test
+	void getPosts_whenThereArePosts_receiveNewestFirstWithAuthor() {
+		User user = userService.save(createValidUser("user1"));
+		List<Post> posts = savePosts(user, 3);
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS);
+		List<Map<String, Object>> content = contentOf(response);
+
+		assertThat(((Number) content.getFirst().get("id")).longValue()).isEqualTo(posts.getLast().getId());
+		assertThat(((Map<?, ?>) content.getFirst().get("user")).get("username")).isEqualTo("user1");
+	}
+
+	@Test
+	void getPosts_whenNextCursorIsFollowed_receiveOlderPosts() {
+		User user = userService.save(createValidUser("user1"));
+		List<Post> posts = savePosts(user, 5);
+
+		ResponseEntity<Map<String, Object>> firstPage = getPosts(API_1_0_POSTS + "?size=3");
+		String nextCursor = Objects.requireNonNull(firstPage.getBody()).get("nextCursor").toString();
+		ResponseEntity<Map<String, Object>> secondPage = getPosts(API_1_0_POSTS + "?size=3&before=" + nextCursor);
+		List<Map<String, Object>> content = contentOf(secondPage);
+
+		assertThat(content.size()).isEqualTo(2);
+		assertThat(((Number) content.getLast().get("id")).longValue()).isEqualTo(posts.getFirst().getId());
+		assertThat(Objects.requireNonNull(secondPage.getBody()).get("nextCursor")).isNull();
+	}
+
+	@Test
+	void getPosts_whenAfterCursorProvided_receiveOnlyNewerPosts() {
+		User user = userService.save(createValidUser("user1"));
+		savePosts(user, 3);
+		ResponseEntity<Map<String, Object>> firstPage = getPosts(API_1_0_POSTS + "?size=2");
+		String prevCursor = Objects.requireNonNull(firstPage.getBody()).get("prevCursor").toString();
+		List<Post> newerPosts = savePosts(user, 2);
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "?size=2&after=" + prevCursor);
+		List<Map<String, Object>> content = contentOf(response);
+
+		assertThat(content.size()).isEqualTo(2);
+		assertThat(((Number) content.getFirst().get("id")).longValue()).isEqualTo(newerPosts.getLast().getId());
+		assertThat(((Number) content.getLast().get("id")).longValue()).isEqualTo(newerPosts.getFirst().getId());
+	}
+
+	@Test
+	void getPosts_whenPollingIsCaughtUp_receiveSameCursorToKeepPolling() {
+		User user = userService.save(createValidUser("user1"));
+		savePosts(user, 3);
+		ResponseEntity<Map<String, Object>> firstPage = getPosts(API_1_0_POSTS + "?size=2");
+		String prevCursor = Objects.requireNonNull(firstPage.getBody()).get("prevCursor").toString();
+
+		ResponseEntity<Map<String, Object>> caughtUp = getPosts(API_1_0_POSTS + "?size=2&after=" + prevCursor);
+		assertThat(contentOf(caughtUp).size()).isEqualTo(0);
+		assertThat(Objects.requireNonNull(caughtUp.getBody()).get("prevCursor")).isEqualTo(prevCursor);
+
+		Post newer = savePosts(user, 1).getFirst();
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "?size=2&after=" + prevCursor);
+		List<Map<String, Object>> content = contentOf(response);
+
+		assertThat(content.size()).isEqualTo(1);
+		assertThat(((Number) content.getFirst().get("id")).longValue()).isEqualTo(newer.getId());
+		assertThat(Objects.requireNonNull(response.getBody()).get("prevCursor")).isNotEqualTo(prevCursor);
+	}
+
+	@Test
+	void getPosts_whenBeforeAndAfterProvided_receiveBadRequest() {
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "?before=AAAAAAAAAAE&after=AAAAAAAAAAE");
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void getPosts_whenPostWasCreated_receiveItFromHotFeedWithoutDatabase() {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+		postPost(createValidPost(), Object.class);
+		postRepository.deleteAllInBatch();
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS);
+		List<Map<String, Object>> content = contentOf(response);
+
+		assertThat(content.size()).isEqualTo(1);
+		assertThat(((Map<?, ?>) content.getFirst().get("user")).get("displayName")).isEqualTo("test-display");
+	}
+
+	@Test
+	void getPosts_whenAuthorUpdatedProfile_receiveUpdatedAuthorFromHotFeed() {
+		User user = userService.save(createValidUser("user1"));
+		authenticate("user1");
+		postPost(createValidPost(), Object.class);
+		UserUpdateViewModel update = new UserUpdateViewModel();
+		update.setDisplayName("updated-display");
+		testRestTemplate.exchange("/api/1.0/users/" + user.getId(), HttpMethod.PUT, new HttpEntity<>(update),
+				Object.class);
+
+		List<Map<String, Object>> content = contentOf(getPosts(API_1_0_POSTS));
+
+		assertThat(((Map<?, ?>) content.getFirst().get("user")).get("displayName")).isEqualTo("updated-display");
+	}
+
+	@Test
+	void getPostsOfUser_whenUserHasPosts_receiveOnlyTheirPosts() {
+		User user1 = userService.save(createValidUser("user1"));
+		User user2 = userService.save(createValidUser("user2"));
+		savePosts(user1, 2);
+		savePosts(user2, 3);
+
+		ResponseEntity<Map<String, Object>> response = getPosts("/api/1.0/users/user1/posts");
+
+		assertThat(contentOf(response).size()).isEqualTo(2);
+	}
+
+	@Test
+	void createPost_whenCountersAreFlushed_userShowsPostCountAndLastPostDate() {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+
+		postPost(createValidPost(), Object.class);
+		postPost(createValidPost(), Object.class);
+		postCounters.flush();
+
+		ResponseEntity<Map<String, Object>> response = getPosts("/api/1.0/users/user1");
+		Map<String, Object> user = Objects.requireNonNull(response.getBody());
+		long lastPostAt = ((Number) user.get("lastPostAt")).longValue();
+		assertThat(((Number) user.get("postCount")).longValue()).isEqualTo(2);
+		assertThat(lastPostAt).isEqualTo(postRepository.findAll().stream()
+				.mapToLong(post -> post.getTimestamp().getTime()).max().orElseThrow());
+	}
+
+	@Test
+	void createPost_whenCountersAreFlushed_userListShowsPostCount() {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+
+		postPost(createValidPost(), Object.class);
+		postCounters.flush();
+		testRestTemplate.getRestTemplate().getInterceptors().clear();
+
+		ResponseEntity<Map<String, Object>> response = getPosts("/api/1.0/users");
+		Map<String, Object> user = contentOf(response).getFirst();
+		assertThat(((Number) user.get("postCount")).longValue()).isEqualTo(1);
+	}
+
+	@Test
+	void getPosts_whenPostsExist_authorOmitsPostCount() {
+		User user = userService.save(createValidUser("user1"));
+		savePosts(user, 1);
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS);
+		@SuppressWarnings("unchecked")
+		Map<String, Object> author = (Map<String, Object>) contentOf(response).getFirst().get("user");
+		assertThat(author.containsKey("postCount")).isFalse();
+	}
+
+	@Test
+	void searchPosts_whenPostsMatch_receiveRankedResults() {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+		postPost(postWithContent("A quick brown fox jumps over the lazy dog"), Object.class);
+		postPost(postWithContent("Fox, fox and fox again"), Object.class);
+		postPost(postWithContent("Nothing relevant in this one"), Object.class);
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "/search?q=FOX");
+		List<Map<String, Object>> content = contentOf(response);
+		assertThat(((Number) Objects.requireNonNull(response.getBody()).get("totalElements")).longValue())
+				.isEqualTo(2);
+		assertThat(content.getFirst().get("content")).isEqualTo("Fox, fox and fox again");
+	}
+
+	@Test
+	void searchPosts_whenQueryIsBlank_receiveEmptyPage() {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+		postPost(createValidPost(), Object.class);
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "/search?q=%20");
+		assertThat(contentOf(response).size()).isEqualTo(0);
+	}
+
+	@Test
+	void searchPosts_whenPostsExistedBeforeRebuild_receiveThem() {
+		User user = userService.save(createValidUser("user1"));
+		savePosts(user, 3);
+		postSearchIndex.rebuild();
+
+		ResponseEntity<Map<String, Object>> response = getPosts(API_1_0_POSTS + "/search?q=test&size=2");
+		assertThat(contentOf(response).size()).isEqualTo(2);
+		assertThat(((Number) Objects.requireNonNull(response.getBody()).get("totalElements")).longValue())
+				.isEqualTo(3);
+	}
+
+	@Test
+	void streamPosts_whenPostIsCreated_receiveItAsEvent() throws Exception {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+
+		HttpClient client = HttpClient.newHttpClient();
+		try {
+			BlockingQueue<String> lines = openStream(client, null);
+			postPost(postWithContent("Streamed to every open connection"), Object.class);
+
+			String data = nextData(lines);
+			assertThat(data).contains("Streamed to every open connection");
+			assertThat(data).contains("\"username\":\"user1\"");
+		} finally {
+			client.shutdownNow();
+		}
+	}
+
+	@Test
+	void streamPosts_whenLastEventIdIsSent_receiveOnlyNewerPostsFromHistory() throws Exception {
+		userService.save(createValidUser("user1"));
+		authenticate("user1");
+		postPost(postWithContent("Seen before the reconnect"), Object.class);
+		postPost(postWithContent("Missed while disconnected"), Object.class);
+		long seenId = postRepository.findAll().stream().mapToLong(Post::getId).min().orElseThrow();
+
+		HttpClient client = HttpClient.newHttpClient();
+		try {
+			BlockingQueue<String> lines = openStream(client, seenId);
+
+			assertThat(nextData(lines)).contains("Missed while disconnected");
+		} finally {
+			client.shutdownNow();
+		}
+	}
+
+	@Test
+	void streamPosts_whenHeartbeatIsDue_receiveComment() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		try {
+			BlockingQueue<String> lines = openStream(client, null);
+			postStream.heartbeat();
+
+			String line;
+			do {
+				line = lines.poll(5, TimeUnit.SECONDS);
+			} while (line != null && !line.startsWith(":"));
+			assertThat(line).isEqualTo(":heartbeat");
+		} finally {
+			client.shutdownNow();
+		}
+	}
+
+	@Test
+	void streamPosts_whenClientDisconnects_subscriberIsDroppedByHeartbeat() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		int subscribers = postStream.subscriberCount();
+		try {
+			openStream(client, null);
+		} finally {
+			client.shutdownNow();
+		}
+		assertThat(client.awaitTermination(Duration.ofSeconds(5))).isTrue();
+
+		// The first write after a disconnect can still land in the socket buffer, so keep beating until one fails.
+		long deadline = System.currentTimeMillis() + 5000;
+		while (postStream.subscriberCount() > subscribers && System.currentTimeMillis() < deadline) {
+			postStream.heartbeat();
+			Thread.sleep(50);
+		}
+		assertThat(postStream.subscriberCount()).isEqualTo(subscribers);
+	}
+
+	@Test
+	void getPostsOfUser_whenUserDoesNotExist_receiveNotFound() {
+		ResponseEntity<Map<String, Object>> response = getPosts("/api/1.0/users/unknown-user/posts");
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	private List<Post> savePosts(final User user, final int count) {
+		List<Post> posts = IntStream.range(0, count).mapToObj(i -> {
+			Post post = createValidPost();
+			post.setUser(user);
+			post.setTimestamp(new Date());
+			return postRepository.save(post);
+		}).toList();
+		hotFeed.warm();
+		return posts;
+	}
+
+	private static Post postWithContent(final String content) {
+		Post post = createValidPost();
+		post.setContent(content);
+		return post;
+	}
+
+	private BlockingQueue<String> openStream(final HttpClient client, final Long lastEventId)
+			throws InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(
+				URI.create(testRestTemplate.getRootUri() + API_1_0_POSTS + "/stream"));
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", String.valueOf(lastEventId));
+		}
+
+		BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+		client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines())
+				.thenAccept(response -> response.body().forEach(lines::add));
+		// The opening comment is flushed once MVC has taken the emitter, so the stream is fully open after it.
+		assertThat(lines.poll(5, TimeUnit.SECONDS)).isEqualTo(":connected");
+		return lines;
+	}
+
+	private static String nextData(final BlockingQueue<String> lines) throws InterruptedException {
+		String line;
+		do {
+			line = lines.poll(5, TimeUnit.SECONDS);
+		} while (line != null && !line.startsWith("data:"));
+		return Objects.requireNonNull(line, "no event received");
+	}
+
+	private ResponseEntity<Map<String, Object>> getPosts(final String path) {
+		return testRestTemplate.exchange(path, HttpMethod.GET, null, new ParameterizedTypeReference<>() {
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> contentOf(final ResponseEntity<Map<String, Object>> response) {
+		return (List<Map<String, Object>>) Objects.requireNonNull(response.getBody()).get("content");
 	}
 
 	private <T> ResponseEntity<T> postPost(final Post post, Class<T> responseType) {
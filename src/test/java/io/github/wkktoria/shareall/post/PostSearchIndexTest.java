@@ -0,0 +1,76 @@
+package io.github.wkktoria.shareall.post;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class PostSearchIndexTest {
+    @Test
+    void tokenize_whenTextHasPunctuationAndCase_returnsLowercaseWords() {
+        assertThat(PostSearchIndex.tokenize("Hello, World! Zażółć 42x")).isEqualTo(
+                List.of("hello", "world", "zażółć", "42x"));
+    }
+
+    @Test
+    void postingList_whenIdsArriveOutOfOrder_iteratesInAscendingOrder() {
+        PostSearchIndex.PostingList posting = new PostSearchIndex.PostingList();
+        posting.add(10, 1);
+        posting.add(5_000_000_000L, 3);
+        posting.add(7, 2);
+
+        assertThat(entries(posting)).isEqualTo(List.of("7:2", "10:1", "5000000000:3"));
+    }
+
+    @Test
+    void postingList_whenWrittenAndRead_keepsEntries() throws IOException {
+        PostSearchIndex.PostingList posting = new PostSearchIndex.PostingList();
+        for (long id = 1; id <= 1000; id += 3) {
+            posting.add(id, (int) (id % 5) + 1);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        posting.writeTo(new DataOutputStream(bytes));
+        PostSearchIndex.PostingList read = PostSearchIndex.PostingList.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(entries(read)).isEqualTo(entries(posting));
+    }
+
+    @Test
+    void postingList_whenManyIdsArriveOutOfOrder_keepsEntriesAscendingAcrossWriteAndRead() throws IOException {
+        PostSearchIndex.PostingList posting = new PostSearchIndex.PostingList();
+        posting.add(1_000, 1);
+        List<String> expected = new ArrayList<>();
+        for (long id = 999; id >= 900; id--) {
+            posting.add(id, 2);
+        }
+        for (long id = 900; id <= 999; id++) {
+            expected.add(id + ":2");
+        }
+        expected.add("1000:1");
+        posting.add(1_001, 3);
+        expected.add("1001:3");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        posting.writeTo(new DataOutputStream(bytes));
+        PostSearchIndex.PostingList read = PostSearchIndex.PostingList.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(entries(posting)).isEqualTo(expected);
+        assertThat(entries(read)).isEqualTo(expected);
+    }
+
+    private static List<String> entries(final PostSearchIndex.PostingList posting) {
+        List<String> entries = new ArrayList<>();
+        posting.forEach((id, frequency) -> entries.add(id + ":" + frequency));
+        return entries;
+    }
+}
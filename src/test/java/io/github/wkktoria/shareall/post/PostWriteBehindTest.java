@@ -0,0 +1,191 @@
+package io.github.wkktoria.shareall.post;
+
+import io.github.wkktoria.shareall.user.UserRepository;
+import io.github.wkktoria.shareall.user.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidPost;
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareall.post-write-behind.enabled=true",
+        "shareall.post-write-behind.log-path=" + PostWriteBehindTest.LOG_PATH,
+        "shareall.post-write-behind.segment-size=512B",
+        // H2 hands back a session's cached result while another connection's insert is still uncommitted, and
+        // keeps handing it back after the commit; polling for the flusher's rows needs a fresh read every time.
+        "spring.datasource.hikari.connection-init-sql=SET OPTIMIZE_REUSE_RESULTS 0"
+})
+@ActiveProfiles("test")
+class PostWriteBehindTest {
+    static final String LOG_PATH = "target/post-write-behind-test.log";
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostWriteBehind postWriteBehind;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanup() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @AfterEach
+    void cleanupAfter() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    void createPost_whenWriteBehindIsEnabled_postIsWrittenAfterAcknowledgement() throws InterruptedException {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = testRestTemplate.postForEntity("/api/1.0/posts", createValidPost(),
+                Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        awaitPostCount(1);
+    }
+
+    @Test
+    void createPost_whenManyPostsAreQueued_allAreWritten() throws InterruptedException {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+
+        for (int i = 0; i < 20; i++) {
+            testRestTemplate.postForEntity("/api/1.0/posts", createValidPost(), Object.class);
+        }
+
+        awaitPostCount(20);
+    }
+
+    @Test
+    void createPost_whenWriteFailsOnceWithNonDataAccessException_postIsWrittenOnRetry() throws InterruptedException {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        doThrow(new CannotCreateTransactionException("Database unreachable")).doCallRealMethod()
+                .when(jdbcTemplate).batchUpdate(startsWith("insert into post"), anyCollection(), anyInt(),
+                        any(ParameterizedPreparedStatementSetter.class));
+
+        testRestTemplate.postForEntity("/api/1.0/posts", createValidPost(), Object.class);
+        awaitPostCount(1);
+
+        testRestTemplate.postForEntity("/api/1.0/posts", createValidPost(), Object.class);
+        awaitPostCount(2);
+    }
+
+    @Test
+    void recover_whenLogHoldsPosts_postsAreWrittenOnceEach() throws IOException {
+        userService.save(createValidUser("user1"));
+        long userId = userRepository.findByUsername("user1").getId();
+        String entry = "{\"id\":900001,\"userId\":" + userId
+                + ",\"timestamp\":1700000000000,\"content\":\"Recovered post content\"}\n";
+
+        Path first = Path.of(LOG_PATH + ".recovered-1");
+        Path second = Path.of(LOG_PATH + ".recovered-2");
+        Files.writeString(first, entry + "{\"id\":9000");
+        Files.writeString(second, entry);
+        try {
+            postWriteBehind.recover(List.of(first, second));
+        } finally {
+            Files.delete(first);
+            Files.delete(second);
+        }
+
+        assertThat(postRepository.count()).isEqualTo(1);
+        assertThat(postRepository.findById(900001L).orElseThrow().getContent()).isEqualTo("Recovered post content");
+    }
+
+    @Test
+    void createPost_whenLogRollsOverSegments_flushedSegmentsAreDeleted() throws IOException, InterruptedException {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        // A slow database rather than a failing one: posts pile up in the log while the first batch is held.
+        CountDownLatch databaseSlow = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            databaseSlow.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).batchUpdate(startsWith("insert into post"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        for (int i = 0; i < 20; i++) {
+            testRestTemplate.postForEntity("/api/1.0/posts", createValidPost(), Object.class);
+        }
+        assertThat(segmentCount()).isGreaterThan(1);
+
+        databaseSlow.countDown();
+        awaitPostCount(20);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (segmentCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(segmentCount()).isEqualTo(1);
+    }
+
+    private static long segmentCount() throws IOException {
+        Path log = Path.of(LOG_PATH).toAbsolutePath();
+        String segment = Pattern.quote(log.getFileName() + ".") + "[0-9]+";
+        try (Stream<Path> files = Files.list(log.getParent())) {
+            return files.filter(file -> file.getFileName().toString().matches(segment)).count();
+        }
+    }
+
+    private void awaitPostCount(final long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (postRepository.count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(postRepository.count()).isEqualTo(expected);
+    }
+
+    private void authenticate(final String username) {
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor(username, "P4sW@ord"));
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.wkktoria.shareall.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class BatchLoaderTest {
+    @Test
+    void dispatch_whenSeveralKeysWereLoaded_callsBatchFunctionOnce() {
+        List<Set<String>> batches = new ArrayList<>();
+        BatchLoader<String, String> loader = new BatchLoader<>(keys -> {
+            batches.add(keys);
+            return keys.stream().collect(Collectors.toMap(Function.identity(), String::toUpperCase));
+        });
+
+        CompletableFuture<String> first = loader.load("a");
+        CompletableFuture<String> second = loader.load("b");
+        CompletableFuture<String> duplicate = loader.load("a");
+        loader.dispatch();
+
+        assertThat(batches.size()).isEqualTo(1);
+        assertThat(batches.getFirst()).isEqualTo(Set.of("a", "b"));
+        assertThat(first.join()).isEqualTo("A");
+        assertThat(second.join()).isEqualTo("B");
+        assertThat(duplicate).isSameAs(first);
+    }
+
+    @Test
+    void load_whenKeyWasAlreadyResolved_doesNotQueryAgain() {
+        List<Set<String>> batches = new ArrayList<>();
+        BatchLoader<String, String> loader = new BatchLoader<>(keys -> {
+            batches.add(keys);
+            return Map.of();
+        });
+
+        loader.loadMany(List.of("a"));
+        loader.loadMany(List.of("a"));
+
+        assertThat(batches.size()).isEqualTo(1);
+    }
+}
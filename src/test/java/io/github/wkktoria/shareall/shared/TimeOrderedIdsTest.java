@@ -0,0 +1,82 @@
+package io.github.wkktoria.shareall.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTest {
+    private static final long NOW = TimeOrderedIds.EPOCH + 86_400_000L;
+
+    @Test
+    void next_whenClockDoesNotMove_returnsIncreasingIdsPastTheSequenceLimit() {
+        TimeOrderedIds ids = new TimeOrderedIds(3, () -> NOW);
+
+        long previous = ids.next();
+        for (int i = 0; i < 1000; i++) {
+            long id = ids.next();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void next_whenClockGoesBackwards_returnsIncreasingIds() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIds ids = new TimeOrderedIds(0, clock::get);
+
+        long before = ids.next();
+        clock.addAndGet(-5_000);
+        assertThat(ids.next()).isGreaterThan(before);
+    }
+
+    @Test
+    void next_whenClockAdvances_encodesTimestampAndNode() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIds ids = new TimeOrderedIds(17, clock::get);
+
+        ids.next();
+        clock.addAndGet(250);
+        long id = ids.next();
+
+        assertThat(TimeOrderedIds.timestampOf(id)).isEqualTo(NOW + 250);
+        assertThat(TimeOrderedIds.nodeOf(id)).isEqualTo(17);
+    }
+
+    @Test
+    void next_whenTimestampIsFarInTheFuture_staysWithinJavaScriptSafeIntegers() {
+        long year2090 = 3_786_912_000_000L;
+        TimeOrderedIds ids = new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID, () -> year2090);
+
+        assertThat(ids.next()).isLessThan(1L << 53);
+    }
+
+    @Test
+    void next_whenCalledConcurrently_returnsUniqueIds() throws InterruptedException {
+        TimeOrderedIds ids = new TimeOrderedIds(1);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(i -> executor.execute(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    seen.add(ids.next());
+                }
+            }));
+        }
+
+        assertThat(seen).hasSize(80_000);
+    }
+
+    @Test
+    void constructor_whenNodeIdIsOutOfRange_throwsIllegalArgumentException() {
+        assertThatThrownBy(() -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.wkktoria.shareall.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class PostCountersTest {
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostCounters postCounters;
+
+    @BeforeEach
+    void cleanup() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void flush_whenUserWasLoadedBeforeFlush_laterEntityWritesSucceedAndKeepCount() {
+        User saved = userService.save(createValidUser("user1"));
+        User loaded = userRepository.findByUsername("user1");
+
+        postCounters.record(saved.getId(), System.currentTimeMillis());
+        postCounters.flush();
+
+        loaded.setDisplayName("newDisplayName");
+        User updated = userRepository.save(loaded);
+
+        User reloaded = userRepository.findByUsername("user1");
+        assertThat(reloaded.getDisplayName()).isEqualTo("newDisplayName");
+        assertThat(reloaded.getPostCount()).isEqualTo(1);
+
+        userRepository.delete(updated);
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    void flush_whenPostCountChanges_userETagChanges() {
+        User saved = userService.save(createValidUser("user1"));
+        String eTag = testRestTemplate.getForEntity("/api/1.0/users/user1", Object.class).getHeaders().getETag();
+
+        postCounters.record(saved.getId(), System.currentTimeMillis());
+        postCounters.flush();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> response = testRestTemplate.exchange("/api/1.0/users/user1", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
@@ -18,12 +18,16 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 
 import java.io.File;
 import java.io.IOException;
@@ -55,9 +59,16 @@ class UserControllerTest {
     @Autowired
     private AppConfig appConfig;
 
+    @Autowired
+    private UserCountEstimator userCountEstimator;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     @BeforeEach
     void cleanup() {
         userRepository.deleteAll();
+        userSearchIndex.rebuild();
         testRestTemplate.getRestTemplate().getInterceptors().clear();
     }
 
@@ -399,6 +410,213 @@ class UserControllerTest {
         assertThat(Objects.requireNonNull(response.getBody()).getTotalElements()).isEqualTo(2);
     }
 
+    @Test
+    void getUsers_whenCountIsDisabled_receiveSliceWithoutTotals() {
+        IntStream.rangeClosed(1, 5).mapToObj(i -> "test-user-" + i)
+                .map(TestUtil::createValidUser)
+                .forEach(userRepository::save);
+        ResponseEntity<Map<String, Object>> response = getUsers(API_1_0_USERS + "?count=false&size=3",
+                new ParameterizedTypeReference<>() {
+                });
+        Map<String, Object> body = Objects.requireNonNull(response.getBody());
+        assertThat(((List<?>) body.get("content")).size()).isEqualTo(3);
+        assertThat(body.get("next")).isEqualTo(true);
+        assertThat(body.containsKey("totalElements")).isFalse();
+    }
+
+    @Test
+    void getUsers_whenCountIsDisabledAfterCountRefresh_receiveApproximateTotal() {
+        IntStream.rangeClosed(1, 5).mapToObj(i -> "test-user-" + i)
+                .map(TestUtil::createValidUser)
+                .forEach(userRepository::save);
+        userCountEstimator.refresh();
+        ResponseEntity<Map<String, Object>> response = getUsers(API_1_0_USERS + "?count=false",
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(Objects.requireNonNull(response.getBody()).get("approximateTotalElements")).isEqualTo(5);
+    }
+
+    @Test
+    void getUsers_whenCursorModeRequestedForFirstPage_receiveNextCursor() {
+        IntStream.rangeClosed(1, 5).mapToObj(i -> "test-user-" + i)
+                .map(TestUtil::createValidUser)
+                .forEach(userRepository::save);
+        ResponseEntity<Map<String, Object>> response = getUsers(API_1_0_USERS + "?after=&size=3",
+                new ParameterizedTypeReference<>() {
+                });
+        Map<String, Object> body = Objects.requireNonNull(response.getBody());
+        assertThat(((List<?>) body.get("content")).size()).isEqualTo(3);
+        assertThat(body.get("nextCursor")).isNotNull();
+    }
+
+    @Test
+    void getUsers_whenCursorOfFirstPageProvided_receiveRemainingUsers() {
+        IntStream.rangeClosed(1, 5).mapToObj(i -> "test-user-" + i)
+                .map(TestUtil::createValidUser)
+                .forEach(userRepository::save);
+        ResponseEntity<Map<String, Object>> firstPage = getUsers(API_1_0_USERS + "?after=&size=3",
+                new ParameterizedTypeReference<>() {
+                });
+        String nextCursor = Objects.requireNonNull(firstPage.getBody()).get("nextCursor").toString();
+
+        ResponseEntity<Map<String, Object>> response = getUsers(API_1_0_USERS + "?size=3&after=" + nextCursor,
+                new ParameterizedTypeReference<>() {
+                });
+        Map<String, Object> body = Objects.requireNonNull(response.getBody());
+        assertThat(((List<?>) body.get("content")).size()).isEqualTo(2);
+        assertThat(body.get("nextCursor")).isNull();
+    }
+
+    @Test
+    void getUsers_whenInvalidCursorProvided_receiveBadRequest() {
+        ResponseEntity<Object> response = getUsers(API_1_0_USERS + "?after=not-a-cursor",
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void searchUsers_whenUsernamePrefixProvided_receiveMatchingUsers() {
+        userService.save(createValidUser("alice-smith"));
+        userService.save(createValidUser("alina"));
+        userService.save(createValidUser("bobby"));
+        ResponseEntity<TestPage<Map<String, Object>>> response = getUsers(API_1_0_USERS + "/search?q=al",
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(Objects.requireNonNull(response.getBody()).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchUsers_whenDisplayNameFragmentProvided_receiveMatchingUser() {
+        User user = createValidUser("user1");
+        user.setDisplayName("Jonathan Walker");
+        userService.save(user);
+        userService.save(createValidUser("user2"));
+        ResponseEntity<TestPage<Map<String, Object>>> response = getUsers(API_1_0_USERS + "/search?q=walk",
+                new ParameterizedTypeReference<>() {
+                });
+        TestPage<Map<String, Object>> page = Objects.requireNonNull(response.getBody());
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent().getFirst().get("username")).isEqualTo("user1");
+    }
+
+    @Test
+    void searchUsers_whenExactUsernameMatches_receiveItRankedFirst() {
+        userService.save(createValidUser("xuser"));
+        userService.save(createValidUser("user"));
+        userService.save(createValidUser("username"));
+        ResponseEntity<TestPage<Map<String, Object>>> response = getUsers(API_1_0_USERS + "/search?q=user",
+                new ParameterizedTypeReference<>() {
+                });
+        List<Map<String, Object>> content = Objects.requireNonNull(response.getBody()).getContent();
+        assertThat(content.stream().map(u -> u.get("username")).toList())
+                .isEqualTo(List.of("user", "username", "xuser"));
+    }
+
+    @Test
+    void searchUsers_whenDisplayNameUpdated_receiveUserForNewDisplayName() {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+        UserUpdateViewModel update = new UserUpdateViewModel();
+        update.setDisplayName("Renamed");
+        putUser(user.getId(), new HttpEntity<>(update), Object.class);
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        ResponseEntity<TestPage<Map<String, Object>>> response = getUsers(API_1_0_USERS + "/search?q=renamed",
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(Objects.requireNonNull(response.getBody()).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void searchUsers_whenQueryIsBlank_receiveEmptyPage() {
+        userService.save(createValidUser("user1"));
+        ResponseEntity<TestPage<Map<String, Object>>> response = getUsers(API_1_0_USERS + "/search?q=",
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(Objects.requireNonNull(response.getBody()).getTotalElements()).isEqualTo(0);
+    }
+
+    @Test
+    void getUserByUsername_whenUserExists_receiveStrongETag() {
+        User user = userService.save(createValidUser("user1"));
+        ResponseEntity<Object> response = getUser("user1", Object.class);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + user.getId() + "-0-0\"");
+    }
+
+    @Test
+    void getUserByUsername_whenETagMatches_receiveNotModifiedWithoutBody() {
+        userService.save(createValidUser("user1"));
+        String eTag = getUser("user1", Object.class).getHeaders().getETag();
+        ResponseEntity<String> response = getWithIfNoneMatch(API_1_0_USERS + "/user1", eTag);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void getUserByUsername_whenUserUpdatedAfterETagWasIssued_receiveOk() {
+        User user = userService.save(createValidUser("user1"));
+        String eTag = getUser("user1", Object.class).getHeaders().getETag();
+        authenticate(user.getUsername());
+        putUser(user.getId(), new HttpEntity<>(createValidUserUpdateViewModel()), Object.class);
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        ResponseEntity<String> response = getWithIfNoneMatch(API_1_0_USERS + "/user1", eTag);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getUsers_whenETagOfUnchangedPageProvided_receiveNotModified() {
+        userService.save(createValidUser("user1"));
+        String eTag = getUsers(new ParameterizedTypeReference<>() {
+        }).getHeaders().getETag();
+        ResponseEntity<String> response = getWithIfNoneMatch(API_1_0_USERS, eTag);
+        assertThat(eTag).startsWith("W/");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void getUsers_whenUserAddedAfterETagWasIssued_receiveOk() {
+        userService.save(createValidUser("user1"));
+        String eTag = getUsers(new ParameterizedTypeReference<>() {
+        }).getHeaders().getETag();
+        userService.save(createValidUser("user2"));
+        ResponseEntity<String> response = getWithIfNoneMatch(API_1_0_USERS, eTag);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getUsers_whenUsernamesProvided_receiveThoseUsersInRequestedOrder() {
+        IntStream.rangeClosed(1, 4).mapToObj(i -> "test-user-" + i)
+                .map(TestUtil::createValidUser)
+                .forEach(userRepository::save);
+        String path = API_1_0_USERS + "?usernames=test-user-3,test-user-1,unknown,test-user-3";
+        ResponseEntity<List<Map<String, Object>>> response = getUsers(path, new ParameterizedTypeReference<>() {
+        });
+        List<Object> usernames = Objects.requireNonNull(response.getBody()).stream()
+                .map(user -> user.get("username"))
+                .toList();
+        assertThat(usernames).isEqualTo(List.of("test-user-3", "test-user-1"));
+    }
+
+    @Test
+    void getUsers_whenIdsProvided_receiveThoseUsers() {
+        User user1 = userRepository.save(createValidUser("test-user-1"));
+        User user2 = userRepository.save(createValidUser("test-user-2"));
+        userRepository.save(createValidUser("test-user-3"));
+        String path = API_1_0_USERS + "?ids=" + user1.getId() + "," + user2.getId();
+        ResponseEntity<List<Map<String, Object>>> response = getUsers(path, new ParameterizedTypeReference<>() {
+        });
+        assertThat(Objects.requireNonNull(response.getBody()).size()).isEqualTo(2);
+    }
+
+    @Test
+    void getUsers_whenTooManyUsernamesProvided_receiveBadRequest() {
+        String usernames = IntStream.rangeClosed(1, 101).mapToObj(i -> "user" + i).collect(Collectors.joining(","));
+        ResponseEntity<Object> response = getUsers(API_1_0_USERS + "?usernames=" + usernames,
+                new ParameterizedTypeReference<>() {
+                });
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void getUserByUsername_whenUserExists_receiveOk() {
         final String username = "test-user";
@@ -593,6 +811,77 @@ class UserControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    void putUser_withValidRequestBodyWithGifImageFromAuthorizedUser_leavesNoFileInStorage() throws IOException {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        UserUpdateViewModel updatedUser = createValidUserUpdateViewModel();
+        updatedUser.setImage(readFileToBase64("test-gif.gif"));
+
+        putUser(user.getId(), new HttpEntity<>(updatedUser), Object.class);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+
+    @Test
+    void putUserImage_withMultipartPngFromAuthorizedUser_imageIsStoredUnderProfileFolder() throws IOException {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", new ClassPathResource("profile.png"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<UserViewModel> response = putUserImage(user.getId(), new HttpEntity<>(body, headers),
+                UserViewModel.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        String storedImageName = Objects.requireNonNull(response.getBody()).getImage();
+        File storedImage = new File(appConfig.getFullProfileImagesPath(), storedImageName);
+        assertThat(FileUtils.contentEquals(storedImage, new ClassPathResource("profile.png").getFile())).isTrue();
+    }
+
+    @Test
+    void putUserImage_withRawJpgBodyForUserWhoHasImage_replacesOldImage() throws IOException {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+        String oldImage = Objects.requireNonNull(putUserImage(user.getId(), rawImage("test-jpg.jpg"),
+                UserViewModel.class).getBody()).getImage();
+
+        ResponseEntity<UserViewModel> response = putUserImage(user.getId(), rawImage("test-jpg.jpg"),
+                UserViewModel.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list())
+                .containsExactly(Objects.requireNonNull(response.getBody()).getImage());
+        assertThat(response.getBody().getImage()).isNotEqualTo(oldImage);
+    }
+
+    @Test
+    void putUserImage_withRawGifBody_receiveBadRequestAndLeavesNoFileInStorage() throws IOException {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        ResponseEntity<Object> response = putUserImage(user.getId(), rawImage("test-gif.gif"), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(new File(appConfig.getFullProfileImagesPath()).list()).isEmpty();
+    }
+
+    @Test
+    void putUserImage_whenUnauthorizedUserSendsRequest_receiveUnauthorized() throws IOException {
+        ResponseEntity<Object> response = putUserImage(123, rawImage("profile.png"), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void putUserImage_whenAuthorizedUserSendsImageForAnotherUser_receiveForbidden() throws IOException {
+        User user = userService.save(createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        ResponseEntity<Object> response = putUserImage(user.getId() + 123, rawImage("profile.png"), Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
     @Test
     void putUser_withValidRequestBodyWithTxtImageFromAuthorizedUser_receiveValidationErrorForProfileImage() throws IOException {
         User user = userService.save(createValidUser("user1"));
@@ -662,6 +951,12 @@ class UserControllerTest {
         return testRestTemplate.exchange(path, HttpMethod.GET, null, responseType);
     }
 
+    private ResponseEntity<String> getWithIfNoneMatch(final String path, final String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return testRestTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
     public <T> ResponseEntity<T> getUser(final String username, Class<T> responseType) {
         final String path = API_1_0_USERS + "/" + username;
         return testRestTemplate.getForEntity(path, responseType);
@@ -671,4 +966,16 @@ class UserControllerTest {
         final String path = API_1_0_USERS + "/" + id;
         return testRestTemplate.exchange(path, HttpMethod.PUT, requestEntity, responseType);
     }
+
+    private <T> ResponseEntity<T> putUserImage(final long id, HttpEntity<?> requestEntity, Class<T> responseType) {
+        final String path = API_1_0_USERS + "/" + id + "/image";
+        return testRestTemplate.exchange(path, HttpMethod.PUT, requestEntity, responseType);
+    }
+
+    private static HttpEntity<byte[]> rawImage(final String filename) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        // Always declared as PNG: the server sniffs the bytes instead of trusting the declared type.
+        headers.setContentType(MediaType.IMAGE_PNG);
+        return new HttpEntity<>(FileUtils.readFileToByteArray(new ClassPathResource(filename).getFile()), headers);
+    }
 }
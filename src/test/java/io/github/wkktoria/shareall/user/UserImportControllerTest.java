@@ -0,0 +1,123 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.user.viewmodel.UserImportResultViewModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Objects;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserImportControllerTest {
+    private static final String API_1_0_ADMIN_USERS_IMPORT = "/api/1.0/admin/users/import";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    void cleanup() {
+        userRepository.deleteAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @Test
+    void postImport_whenUnauthenticated_receiveUnauthorized() {
+        ResponseEntity<Object> response = postImport(NDJSON, "", Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void postImport_whenUserIsNotAdmin_receiveForbidden() {
+        userService.save(createValidUser("user1"));
+        authenticate("user1");
+        ResponseEntity<Object> response = postImport(NDJSON, "", Object.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void postImport_whenNdjsonRowsAreValid_usersSavedToDatabase() {
+        authenticateAsAdmin();
+        String body = """
+                {"username":"imported1","displayName":"display1","password":"P4sW@ord"}
+                {"username":"imported2","displayName":"display2","password":"P4sW@ord"}
+                """;
+        ResponseEntity<UserImportResultViewModel> response = postImport(NDJSON, body, UserImportResultViewModel.class);
+        assertThat(Objects.requireNonNull(response.getBody()).getImported()).isEqualTo(2);
+        assertThat(userRepository.findByUsername("imported2")).isNotNull();
+    }
+
+    @Test
+    void postImport_whenCsvRowsAreValid_usersSavedToDatabase() {
+        authenticateAsAdmin();
+        String body = """
+                username,displayName,password
+                imported1,display1,P4sW@ord
+                "imported2","display, two",P4sW@ord
+                """;
+        ResponseEntity<UserImportResultViewModel> response = postImport(CSV, body, UserImportResultViewModel.class);
+        assertThat(Objects.requireNonNull(response.getBody()).getImported()).isEqualTo(2);
+        assertThat(userRepository.findByUsername("imported2").getDisplayName()).isEqualTo("display, two");
+    }
+
+    @Test
+    void postImport_whenSomeRowsAreInvalid_receiveErrorsForThoseRowsOnly() {
+        authenticateAsAdmin();
+        userService.save(createValidUser("existing"));
+        String body = """
+                {"username":"imported1","displayName":"display1","password":"P4sW@ord"}
+                {"username":"existing","displayName":"display2","password":"P4sW@ord"}
+                {"username":"imported1","displayName":"display3","password":"P4sW@ord"}
+                {"username":"imported4","displayName":"display4","password":"weak"}
+                not json
+                """;
+        ResponseEntity<UserImportResultViewModel> response = postImport(NDJSON, body, UserImportResultViewModel.class);
+        UserImportResultViewModel result = Objects.requireNonNull(response.getBody());
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors().size()).isEqualTo(4);
+        assertThat(result.getErrors().getFirst().getLine()).isEqualTo(2);
+    }
+
+    private void authenticateAsAdmin() {
+        userService.save(createValidUser("admin-user"));
+        authenticate("admin-user");
+    }
+
+    private void authenticate(final String username) {
+        testRestTemplate
+                .getRestTemplate()
+                .getInterceptors()
+                .add(new BasicAuthenticationInterceptor(username, "P4sW@ord"));
+    }
+
+    private <T> ResponseEntity<T> postImport(final MediaType contentType, final String body,
+                                             final Class<T> responseType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        return testRestTemplate.postForEntity(API_1_0_ADMIN_USERS_IMPORT, new HttpEntity<>(body, headers),
+                responseType);
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.wkktoria.shareall.user;
+
+import io.github.wkktoria.shareall.post.Post;
+import io.github.wkktoria.shareall.post.PostRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+import static io.github.wkktoria.shareall.TestUtil.createValidPost;
+import static io.github.wkktoria.shareall.TestUtil.createValidUser;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserQueryCountTest {
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = userService.save(createValidUser("user1"));
+        for (int i = 0; i < 3; i++) {
+            Post post = createValidPost();
+            post.setUser(user);
+            post.setTimestamp(new Date());
+            postRepository.save(post);
+        }
+    }
+
+    @AfterEach
+    void cleanupAfter() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    void findByUsername_whenUserHasPosts_postsAreNotLoaded() {
+        statistics.clear();
+        User user = userRepository.findByUsername("user1");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(user.getPosts())).isFalse();
+    }
+
+    @Test
+    void getUser_whenUserHasPosts_usesOneStatement() {
+        assertStatements(1, () -> testRestTemplate.getForEntity("/api/1.0/users/user1", Object.class));
+    }
+
+    @Test
+    void getUsers_whenUserHasPosts_usesOneStatement() {
+        assertStatements(1, () -> testRestTemplate.getForEntity("/api/1.0/users", Object.class));
+    }
+
+    @Test
+    void getPostsOfUser_whenUserHasPosts_usesTwoStatements() {
+        assertStatements(2, () -> testRestTemplate.getForEntity("/api/1.0/users/user1/posts", Object.class));
+    }
+
+    @Test
+    void postLogin_whenUserHasPosts_usesOneStatement() {
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor("user1", "P4sW@ord"));
+        assertStatements(1, () -> testRestTemplate.postForEntity("/api/1.0/login", null, Object.class));
+    }
+
+    private void assertStatements(final long expected, final Supplier<ResponseEntity<Object>> request) {
+        statistics.clear();
+        ResponseEntity<Object> response = request.get();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+    }
+}
@@ -5,11 +5,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
 import static io.github.wkktoria.shareall.TestUtil.createValidUser;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
@@ -36,4 +45,67 @@ class UserRepositoryTest {
 
         assertThat(inDbUser).isNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAuthUserByUsername_whenUserExists_returnAuthUserWithPassword() {
+        User user = testEntityManager.persist(createValidUser());
+
+        AuthUser authUser = userRepository.findAuthUserByUsername("test-user");
+
+        assertThat(authUser.getId()).isEqualTo(user.getId());
+        assertThat(authUser.getPassword()).isEqualTo(user.getPassword());
+    }
+
+    @Test
+    void findAuthUserByUsername_whenUserDoesNotExist_returnNull() {
+        AuthUser authUser = userRepository.findAuthUserByUsername("nonexistinguser");
+
+        assertThat(authUser).isNull();
+    }
+
+    @Test
+    void findProjectedByUsernameNot_whenUsersExist_returnOtherUsersOnly() {
+        testEntityManager.persist(createValidUser("user1"));
+        testEntityManager.persist(createValidUser("user2"));
+
+        Page<UserProjection> page = userRepository.findProjectedByUsernameNot("user1", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent().getFirst().getUsername()).isEqualTo("user2");
+    }
+
+    @Test
+    void findUsernamesByIdGreaterThan_whenPagingThroughUsers_returnEveryUsernameOnceInIdOrder() {
+        List<String> usernames = IntStream.range(0, 5).mapToObj(i -> "user" + i).toList();
+        usernames.forEach(username -> testEntityManager.persist(createValidUser(username)));
+
+        List<String> seen = new ArrayList<>();
+        long lastId = Long.MIN_VALUE;
+        List<UsernameEntry> batch;
+        do {
+            batch = userRepository.findUsernamesByIdGreaterThan(lastId, Limit.of(2));
+            for (UsernameEntry entry : batch) {
+                assertThat(entry.getId()).isGreaterThan(lastId);
+                seen.add(entry.getUsername());
+                lastId = entry.getId();
+            }
+        } while (batch.size() == 2);
+
+        assertThat(seen).isEqualTo(usernames);
+    }
+
+    @Test
+    void existsByUsername_whenUserExists_returnTrue() {
+        testEntityManager.persist(createValidUser());
+
+        assertThat(userRepository.existsByUsername("test-user")).isTrue();
+    }
+
+    @Test
+    void save_whenUsernameIsAlreadyStored_throwDataIntegrityViolation() {
+        testEntityManager.persist(createValidUser());
+
+        assertThatThrownBy(() -> userRepository.saveAndFlush(createValidUser()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
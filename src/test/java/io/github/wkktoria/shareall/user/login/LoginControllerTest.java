@@ -1,9 +1,12 @@
 package io.github.wkktoria.shareall.user.login;
 
+import io.github.wkktoria.shareall.config.CredentialCache;
 import io.github.wkktoria.shareall.error.ApiError;
 import io.github.wkktoria.shareall.user.User;
 import io.github.wkktoria.shareall.user.UserRepository;
 import io.github.wkktoria.shareall.user.UserService;
+import io.github.wkktoria.shareall.user.viewmodel.LoginViewModel;
+import io.github.wkktoria.shareall.user.viewmodel.TokenRefreshViewModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,10 +14,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -39,6 +45,9 @@ class LoginControllerTest {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private CredentialCache credentialCache;
+
     @BeforeEach
     void cleanup() {
         userRepository.deleteAll();
@@ -163,6 +172,159 @@ class LoginControllerTest {
         assertThat(body.containsKey("password")).isFalse();
     }
 
+    @Test
+    void postLogin_withValidCredentialsTwice_secondRequestServedFromCredentialCache() {
+        userService.save(createValidUser());
+        authenticate();
+        login(Object.class);
+
+        long hitsBefore = credentialCache.getHits();
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(credentialCache.getHits()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void postLogin_withIncorrectPasswordAfterValidLogin_receiveUnauthorized() {
+        userService.save(createValidUser());
+        authenticate();
+        login(Object.class);
+
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor("test-user", "Wr0ng@Pass"));
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void postLogin_withValidCredentialsAndTokenRequested_receiveAccessAndRefreshTokens() {
+        userService.save(createValidUser());
+        authenticate();
+        ResponseEntity<LoginViewModel> response = testRestTemplate.postForEntity(
+                API_1_0_LOGIN + "?token=true", null, LoginViewModel.class);
+
+        LoginViewModel body = Objects.requireNonNull(response.getBody());
+        assertThat(body.getAccessToken()).isNotNull();
+        assertThat(body.getRefreshToken()).isNotNull();
+    }
+
+    @Test
+    void postLogin_withValidCredentialsAndNoTokenRequested_receiveNoTokens() {
+        userService.save(createValidUser());
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<>() {
+        });
+
+        Map<String, Object> body = Objects.requireNonNull(response.getBody());
+        assertThat(body.containsKey("accessToken")).isFalse();
+    }
+
+    @Test
+    void postLogin_withValidBearerToken_receiveOk() {
+        userService.save(createValidUser());
+        String accessToken = loginForTokens().getAccessToken();
+
+        ResponseEntity<Object> response = loginWithBearer(accessToken);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void postLogin_withValidBearerToken_receiveSameProfileAsWithBasicAuth() {
+        userService.save(createValidUser());
+        LoginViewModel basic = loginForTokens();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(basic.getAccessToken());
+        LoginViewModel bearer = testRestTemplate.exchange(API_1_0_LOGIN, HttpMethod.POST, new HttpEntity<>(headers),
+                LoginViewModel.class).getBody();
+
+        assertThat(Objects.requireNonNull(bearer).getDisplayName()).isEqualTo(basic.getDisplayName());
+        assertThat(bearer.getImage()).isEqualTo(basic.getImage());
+        assertThat(bearer.getDisplayName()).isNotNull();
+    }
+
+    @Test
+    void postLogin_withTamperedBearerToken_receiveUnauthorized() {
+        userService.save(createValidUser());
+        String accessToken = loginForTokens().getAccessToken();
+
+        ResponseEntity<Object> response = loginWithBearer("x" + accessToken);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void postLoginRefresh_withValidRefreshToken_receiveNewAccessToken() {
+        userService.save(createValidUser());
+        LoginViewModel tokens = loginForTokens();
+
+        TokenRefreshViewModel refresh = new TokenRefreshViewModel();
+        refresh.setRefreshToken(tokens.getRefreshToken());
+        ResponseEntity<LoginViewModel> response = testRestTemplate.postForEntity(
+                API_1_0_LOGIN + "/refresh", refresh, LoginViewModel.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(Objects.requireNonNull(response.getBody()).getAccessToken()).isNotNull();
+    }
+
+    @Test
+    void postLoginRefresh_withAlreadyUsedRefreshToken_receiveUnauthorized() {
+        userService.save(createValidUser());
+        LoginViewModel tokens = loginForTokens();
+
+        TokenRefreshViewModel refresh = new TokenRefreshViewModel();
+        refresh.setRefreshToken(tokens.getRefreshToken());
+        testRestTemplate.postForEntity(API_1_0_LOGIN + "/refresh", refresh, LoginViewModel.class);
+        ResponseEntity<Object> response = testRestTemplate.postForEntity(
+                API_1_0_LOGIN + "/refresh", refresh, Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void postLogout_withBearerToken_tokenIsRevoked() {
+        userService.save(createValidUser());
+        String accessToken = loginForTokens().getAccessToken();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        testRestTemplate.exchange("/api/1.0/logout", HttpMethod.POST, new HttpEntity<>(headers), Object.class);
+
+        ResponseEntity<Object> response = loginWithBearer(accessToken);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void postLogin_withValidCredentialsForLegacyPasswordHash_passwordHashIsUpgraded() {
+        User user = createValidUser();
+        user.setPassword(new BCryptPasswordEncoder(4).encode(user.getPassword()));
+        userRepository.save(user);
+
+        authenticate();
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(userRepository.findByUsername("test-user").getPassword()).startsWith("{bcrypt}");
+    }
+
+    private LoginViewModel loginForTokens() {
+        authenticate();
+        LoginViewModel tokens = testRestTemplate.postForObject(API_1_0_LOGIN + "?token=true", null, LoginViewModel.class);
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        return tokens;
+    }
+
+    private ResponseEntity<Object> loginWithBearer(final String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        return testRestTemplate.exchange(API_1_0_LOGIN, HttpMethod.POST, new HttpEntity<>(headers), Object.class);
+    }
+
     public <T> ResponseEntity<T> login(Class<T> responseType) {
         return testRestTemplate.postForEntity(API_1_0_LOGIN, null, responseType);
     }